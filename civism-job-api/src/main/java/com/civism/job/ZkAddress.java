@@ -9,6 +9,20 @@ public class ZkAddress {
 
     private Integer port;
 
+    /**
+     * 是否使用异步处理器，业务方法在独立线程池执行
+     */
+    private Boolean async;
+
+    /**
+     * 异步处理时每个bean的业务线程数
+     */
+    private Integer bizThreads;
+
+    /**
+     * 异步处理时每个bean的等待队列长度
+     */
+    private Integer bizQueueSize;
 
     public Integer getPort() {
         return port;
@@ -25,4 +39,28 @@ public class ZkAddress {
     public void setAddress(String address) {
         this.address = address;
     }
+
+    public Boolean getAsync() {
+        return async;
+    }
+
+    public void setAsync(Boolean async) {
+        this.async = async;
+    }
+
+    public Integer getBizThreads() {
+        return bizThreads;
+    }
+
+    public void setBizThreads(Integer bizThreads) {
+        this.bizThreads = bizThreads;
+    }
+
+    public Integer getBizQueueSize() {
+        return bizQueueSize;
+    }
+
+    public void setBizQueueSize(Integer bizQueueSize) {
+        this.bizQueueSize = bizQueueSize;
+    }
 }
@@ -4,8 +4,10 @@ package com.civism.spring;
 import com.civism.constants.CivismConstants;
 import com.civism.job.GuavaJob;
 import com.civism.job.ZkAddress;
+import com.civism.rpc.MethodInvokerCache;
 import com.civism.rpc.RpcUtils;
 import com.civism.rpc.SpringBeanMap;
+import com.civism.rpc.processor.AsyncRpcServerUserProcessor;
 import com.civism.utils.IpUtils;
 import com.civism.zookeeper.ZkClient;
 import org.springframework.beans.BeansException;
@@ -38,6 +40,8 @@ public class GuavaZookeeperNodeInit implements ApplicationContextAware, Initiali
             for (String beanName : beansWithAnnotations.keySet()) {
                 GuavaJob annotation = beansWithAnnotations.get(beanName).getClass().getAnnotation(GuavaJob.class);
                 SpringBeanMap.put(annotation.value(), beansWithAnnotations.get(beanName));
+                //预先解析好方法句柄，调用时不再反射查找
+                MethodInvokerCache.register(annotation.value(), SpringBeanMap.get(annotation.value()));
                 if (annotation != null) {
                     StringBuilder builder = new StringBuilder(CivismConstants.ZK_GUAVA);
                     builder.append(annotation.value());
@@ -57,7 +61,11 @@ public class GuavaZookeeperNodeInit implements ApplicationContextAware, Initiali
         if (zkClient == null) {
             zkClient = new ZkClient(zkAddress.getAddress());
         }
-        RpcUtils.getServerInstance(zkAddress.getPort());
+        if (Boolean.TRUE.equals(zkAddress.getAsync())) {
+            RpcUtils.getServerInstance(zkAddress.getPort(), new AsyncRpcServerUserProcessor(zkAddress.getBizThreads(), zkAddress.getBizQueueSize()));
+        } else {
+            RpcUtils.getServerInstance(zkAddress.getPort());
+        }
         this.zkNodeCreate(zkAddress.getPort());
     }
 }
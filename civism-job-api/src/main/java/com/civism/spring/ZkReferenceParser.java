@@ -17,6 +17,9 @@ public class ZkReferenceParser implements BeanDefinitionParser {
     public BeanDefinition parse(Element element, ParserContext parserContext) {
         String address = element.getAttribute("address");
         String nettyPort = element.getAttribute("port");
+        String async = element.getAttribute("async");
+        String bizThreads = element.getAttribute("biz-threads");
+        String bizQueueSize = element.getAttribute("biz-queue-size");
 
 
         RootBeanDefinition beanDefinition = new RootBeanDefinition();
@@ -24,6 +27,9 @@ public class ZkReferenceParser implements BeanDefinitionParser {
         beanDefinition.setLazyInit(false);
         beanDefinition.getPropertyValues().addPropertyValue("address", address);
         beanDefinition.getPropertyValues().addPropertyValue("port", StringUtils.isEmpty(nettyPort) ? "3000" : nettyPort);
+        beanDefinition.getPropertyValues().addPropertyValue("async", StringUtils.isEmpty(async) ? "false" : async);
+        beanDefinition.getPropertyValues().addPropertyValue("bizThreads", StringUtils.isEmpty(bizThreads) ? "8" : bizThreads);
+        beanDefinition.getPropertyValues().addPropertyValue("bizQueueSize", StringUtils.isEmpty(bizQueueSize) ? "64" : bizQueueSize);
         parserContext.getRegistry().registerBeanDefinition("zkAddress", beanDefinition);
         return beanDefinition;
     }
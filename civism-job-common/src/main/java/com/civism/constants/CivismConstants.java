@@ -11,8 +11,23 @@ public class CivismConstants {
      */
     public static final String ZK_GUAVA = "/guava/";
 
+    /**
+     * 调度中心节点，不能放在 /guava 下面，/guava 的子节点都当作执行端的bean
+     */
+    public static final String ZK_SCHEDULER = "/guava_scheduler";
+
     /**
      * job 详情
      */
     public static final String JOB_DETAIL = "job_detail";
+
+    /**
+     * 编码后的 job 详情
+     */
+    public static final String JOB_DEFINITION = "job_definition";
+
+    /**
+     * 编码后的 job 详情版本号
+     */
+    public static final String JOB_VERSION = "job_version";
 }
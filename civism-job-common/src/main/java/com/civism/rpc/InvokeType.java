@@ -6,5 +6,15 @@ package com.civism.rpc;
  */
 public enum InvokeType {
 
-    ONEWAY, SYNC, FUTURE, CALLBACK
+    ONEWAY, SYNC, FUTURE, CALLBACK,
+
+    /**
+     * 分片广播，每台机器执行一个分片
+     */
+    SHARDING,
+
+    /**
+     * 广播，每台机器执行同样的请求
+     */
+    BROADCAST
 }
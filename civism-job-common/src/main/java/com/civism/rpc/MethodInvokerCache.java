@@ -0,0 +1,207 @@
+package com.civism.rpc;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午4:40
+ * 执行端方法句柄缓存，按 (bean, 方法名, 参数类型) 缓存解析好的 MethodHandle
+ * <p>
+ * bean注册时把所有public方法解析好，调用时只做一次map查找和参数类型比较；
+ * 找不到的方法按 (方法名, 参数类型) 记在有上限的缓存里，反复调用不存在的方法时不再反射查找，
+ * 方法名和参数类型来自调用端，不限大小会被任意请求撑大；反射查找不加锁，只有写入重载列表时加锁
+ */
+public class MethodInvokerCache {
+
+    private static final Class[] NO_TYPES = new Class[0];
+
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * 每个bean记录的不存在的方法数上限
+     */
+    private static final int MAX_MISSING = 1024;
+
+    private static final ConcurrentHashMap<String, BeanInvokers> beanInvokers = new ConcurrentHashMap<>();
+
+    /**
+     * 注册bean并解析它的所有public方法
+     *
+     * @param beanName 调度使用的bean名称
+     * @param bean     bean实例
+     */
+    public static void register(String beanName, Object bean) {
+        BeanInvokers invokers = new BeanInvokers(bean);
+        for (Method method : bean.getClass().getMethods()) {
+            if (method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            invokers.resolve(method.getName(), method.getParameterTypes());
+        }
+        beanInvokers.put(beanName, invokers);
+    }
+
+    /**
+     * 调用bean的方法
+     *
+     * @param beanName   bean名称
+     * @param bean       bean实例，没有注册过时用它懒加载
+     * @param methodName 方法名
+     * @param paramTypes 参数类型，无参时为null或空数组
+     * @param params     参数
+     * @return 方法返回值
+     * @throws NoSuchMethodException 方法不存在
+     */
+    public static Object invoke(String beanName, Object bean, String methodName, Class[] paramTypes, Object[] params) throws Exception {
+        BeanInvokers invokers = beanInvokers.get(beanName);
+        if (invokers == null || invokers.bean != bean) {
+            register(beanName, bean);
+            invokers = beanInvokers.get(beanName);
+        }
+        Class[] types = paramTypes == null ? NO_TYPES : paramTypes;
+        Invoker invoker = invokers.get(methodName, types);
+        if (invoker == null) {
+            throw new NoSuchMethodException(bean.getClass().getName() + "." + methodName + Arrays.toString(types));
+        }
+        try {
+            return (Object) invoker.handle.invokeExact(params == null ? new Object[0] : params);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static class BeanInvokers {
+
+        private final Object bean;
+
+        /**
+         * 方法名 -> 该方法名下解析过的重载
+         */
+        private final ConcurrentHashMap<String, Invoker[]> methods = new ConcurrentHashMap<>();
+
+        /**
+         * 查找过但不存在的方法
+         */
+        private final Cache<MethodKey, Boolean> missing = CacheBuilder.newBuilder().maximumSize(MAX_MISSING).build();
+
+        BeanInvokers(Object bean) {
+            this.bean = bean;
+        }
+
+        Invoker get(String methodName, Class[] paramTypes) {
+            Invoker[] overloads = methods.get(methodName);
+            if (overloads != null) {
+                for (Invoker invoker : overloads) {
+                    if (Arrays.equals(invoker.paramTypes, paramTypes)) {
+                        return invoker;
+                    }
+                }
+            }
+            MethodKey key = new MethodKey(methodName, paramTypes);
+            if (missing.getIfPresent(key) != null) {
+                return null;
+            }
+            Invoker invoker = resolve(methodName, paramTypes);
+            if (invoker == null) {
+                missing.put(key, Boolean.TRUE);
+            }
+            return invoker;
+        }
+
+        /**
+         * 并发解析同一个方法时各自解析，以先写入的为准
+         *
+         * @return 方法不存在时返回null
+         */
+        Invoker resolve(String methodName, Class[] paramTypes) {
+            Method method;
+            try {
+                method = bean.getClass().getMethod(methodName, paramTypes);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+            MethodHandle handle;
+            try {
+                if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                    method.setAccessible(true);
+                }
+                handle = MethodHandles.lookup().unreflect(method)
+                        .bindTo(bean)
+                        .asSpreader(Object[].class, paramTypes.length)
+                        .asType(SPREAD_TYPE);
+            } catch (Exception e) {
+                throw new IllegalStateException("resolve method handle fail, method=" + method, e);
+            }
+            return add(methodName, new Invoker(paramTypes.clone(), handle));
+        }
+
+        private synchronized Invoker add(String methodName, Invoker invoker) {
+            Invoker[] overloads = methods.get(methodName);
+            if (overloads == null) {
+                methods.put(methodName, new Invoker[]{invoker});
+                return invoker;
+            }
+            for (Invoker exist : overloads) {
+                if (Arrays.equals(exist.paramTypes, invoker.paramTypes)) {
+                    return exist;
+                }
+            }
+            Invoker[] copy = Arrays.copyOf(overloads, overloads.length + 1);
+            copy[overloads.length] = invoker;
+            methods.put(methodName, copy);
+            return invoker;
+        }
+    }
+
+    private static class MethodKey {
+
+        private final String methodName;
+
+        private final Class[] paramTypes;
+
+        MethodKey(String methodName, Class[] paramTypes) {
+            this.methodName = methodName;
+            this.paramTypes = paramTypes.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey that = (MethodKey) o;
+            return methodName.equals(that.methodName) && Arrays.equals(paramTypes, that.paramTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * methodName.hashCode() + Arrays.hashCode(paramTypes);
+        }
+    }
+
+    private static class Invoker {
+
+        private final Class[] paramTypes;
+
+        private final MethodHandle handle;
+
+        Invoker(Class[] paramTypes, MethodHandle handle) {
+            this.paramTypes = paramTypes;
+            this.handle = handle;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.civism.rpc;
+
+import java.io.Serializable;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午5:30
+ * 异步执行端的错误响应
+ * <p>
+ * bolt 的 AsyncContext 只能回成功响应，执行端拒绝或者执行异常时用该对象告诉调度端
+ */
+public class RpcErrorResponse implements Serializable {
+
+    private static final long serialVersionUID = -2203548716524735503L;
+
+    /**
+     * 执行端线程池已满，拒绝执行，调度端可以换一台机器
+     */
+    public static final int REJECTED = 1;
+
+    /**
+     * 执行异常
+     */
+    public static final int ERROR = 2;
+
+    private int code;
+
+    private String message;
+
+    public RpcErrorResponse() {
+    }
+
+    public RpcErrorResponse(int code, String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    public static RpcErrorResponse rejected(String message) {
+        return new RpcErrorResponse(REJECTED, message);
+    }
+
+    public static RpcErrorResponse error(String message) {
+        return new RpcErrorResponse(ERROR, message);
+    }
+
+    public boolean isRejected() {
+        return code == REJECTED;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public void setCode(int code) {
+        this.code = code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
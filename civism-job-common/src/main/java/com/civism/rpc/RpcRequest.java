@@ -30,6 +30,16 @@ public class RpcRequest implements Serializable {
      */
     private Integer taskId;
 
+    /**
+     * 分片序号，分片调用时才有
+     */
+    private Integer shareId;
+
+    /**
+     * 总分片数
+     */
+    private Integer totalShare;
+
     private Object[] params;
 
     private Class[] paramsType;
@@ -84,5 +94,21 @@ public class RpcRequest implements Serializable {
         this.taskId = taskId;
     }
 
+    public Integer getShareId() {
+        return shareId;
+    }
+
+    public void setShareId(Integer shareId) {
+        this.shareId = shareId;
+    }
+
+    public Integer getTotalShare() {
+        return totalShare;
+    }
+
+    public void setTotalShare(Integer totalShare) {
+        this.totalShare = totalShare;
+    }
+
 }
 
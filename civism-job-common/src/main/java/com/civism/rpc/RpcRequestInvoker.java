@@ -0,0 +1,44 @@
+package com.civism.rpc;
+
+import com.alibaba.fastjson.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午5:35
+ * 执行端调用bean方法，同步和异步处理器共用
+ */
+public class RpcRequestInvoker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RpcRequestInvoker.class);
+
+    public static Object invoke(RpcRequest request) throws Exception {
+        Object o = SpringBeanMap.get(request.getName());
+        if (o == null) {
+            logger.warn("没有发现调用类，请检查该调用类是否为spring的bean#####request={}", JSON.toJSONString(request));
+            return null;
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("\n\t\t\t\t\t\t\t\t>>>>>>>>任务调度执行<<<<<<<<<<\n" +
+                    "\t\t\t\t\t\t\t\t>>>requestId:{}<<<<<<<<<<\n" +
+                    "\t\t\t\t\t\t\t\t>>bean:{}>>method:{}>>share:{}/{}<<<<<<<\n" +
+                    "\t\t\t\t\t\t\t\t>>>>>>>>>任务调度over<<<<<<<<<\n", request.getRequestId(), request.getName(), request.getMethod(), request.getShareId(), request.getTotalShare());
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("任务调度参数>>>>>>>requestId={}, params={}", request.getRequestId(), JSON.toJSONString(request.getParams()));
+        }
+        if (request.getTotalShare() != null && request.getShareId() != null) {
+            ShardingContext.set(new ShardingContext(request.getShareId(), request.getTotalShare()));
+        }
+        try {
+            if (request.getParams() != null && request.getParams().length == request.getParamsType().length) {
+                return MethodInvokerCache.invoke(request.getName(), o, request.getMethod(), request.getParamsType(), request.getParams());
+            } else {
+                return MethodInvokerCache.invoke(request.getName(), o, request.getMethod(), null, null);
+            }
+        } finally {
+            ShardingContext.clear();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.civism.rpc;
+
+import com.alipay.remoting.InvokeContext;
+import com.alipay.remoting.serialization.SerializerManager;
+import com.civism.rpc.serializer.CivismSerializer;
+
+/**
+ * @author star
+ * @date 2026/10/19 下午4:30
+ * 调用使用的序列化方式，执行端需要和调用端是同样的版本才能用 CIVISM
+ */
+public enum RpcSerializer {
+
+    /**
+     * bolt默认的hessian
+     */
+    HESSIAN(SerializerManager.Hessian2),
+
+    /**
+     * 二进制编码，见 CivismSerializer
+     */
+    CIVISM(CivismSerializer.ID);
+
+    private final byte id;
+
+    RpcSerializer(byte id) {
+        this.id = id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * 为空或者不认识时用 HESSIAN
+     */
+    public static RpcSerializer of(String name) {
+        if (name != null) {
+            for (RpcSerializer serializer : values()) {
+                if (serializer.name().equalsIgnoreCase(name)) {
+                    return serializer;
+                }
+            }
+        }
+        return HESSIAN;
+    }
+
+    /**
+     * 每次调用一个 InvokeContext，非默认序列化时指定序列化方式
+     */
+    public InvokeContext newInvokeContext() {
+        InvokeContext invokeContext = new InvokeContext();
+        if (this != HESSIAN) {
+            invokeContext.put(InvokeContext.BOLT_CUSTOM_SERIALIZER, id);
+        }
+        return invokeContext;
+    }
+}
@@ -3,10 +3,12 @@ package com.civism.rpc;
 import com.alipay.remoting.ConnectionEventType;
 import com.alipay.remoting.rpc.RpcClient;
 import com.alipay.remoting.rpc.RpcServer;
+import com.alipay.remoting.rpc.protocol.UserProcessor;
 import com.civism.rpc.processor.ConnectEventProcessor;
 import com.civism.rpc.processor.DisconnectEventProcessor;
 import com.civism.rpc.processor.SyncRpcClientUserProcessor;
 import com.civism.rpc.processor.SyncRpcServerUserProcessor;
+import com.civism.rpc.serializer.CivismSerializer;
 
 
 /**
@@ -18,13 +20,18 @@ public class RpcUtils {
 
     private static RpcClient client;
 
-    private static void initServer(Integer port) {
+    static {
+        //调用端和执行端都注册，任务按需选用
+        CivismSerializer.register();
+    }
+
+    private static void initServer(Integer port, UserProcessor<?> serverProcessor) {
         server = new RpcServer(port);
         ConnectEventProcessor connectEventProcessor = new ConnectEventProcessor();
         DisconnectEventProcessor disconnectEventProcessor = new DisconnectEventProcessor();
         server.addConnectionEventProcessor(ConnectionEventType.CONNECT, connectEventProcessor);
         server.addConnectionEventProcessor(ConnectionEventType.CLOSE, disconnectEventProcessor);
-        server.registerUserProcessor(new SyncRpcServerUserProcessor());
+        server.registerUserProcessor(serverProcessor);
         server.start();
     }
 
@@ -40,10 +47,17 @@ public class RpcUtils {
     }
 
     public static RpcServer getServerInstance(Integer port) {
+        return getServerInstance(port, new SyncRpcServerUserProcessor());
+    }
+
+    /**
+     * @param serverProcessor 执行端处理器，同步 SyncRpcServerUserProcessor 或者异步 AsyncRpcServerUserProcessor
+     */
+    public static RpcServer getServerInstance(Integer port, UserProcessor<?> serverProcessor) {
         if (server == null) {
             synchronized (RpcUtils.class) {
                 if (server == null) {
-                    initServer(port);
+                    initServer(port, serverProcessor);
                 }
             }
         }
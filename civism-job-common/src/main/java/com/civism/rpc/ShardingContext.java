@@ -0,0 +1,53 @@
+package com.civism.rpc;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午9:10
+ * 分片执行时当前线程的分片信息，只在任务方法执行期间有效
+ * <p>
+ * 任务方法里通过 {@link #get()} 取到本机的分片序号和总分片数，非分片调用时返回null
+ */
+public class ShardingContext {
+
+    private static final ThreadLocal<ShardingContext> CONTEXT = new ThreadLocal<>();
+
+    /**
+     * 分片序号，从0开始
+     */
+    private final int shareId;
+
+    /**
+     * 总分片数
+     */
+    private final int totalShare;
+
+    public ShardingContext(int shareId, int totalShare) {
+        this.shareId = shareId;
+        this.totalShare = totalShare;
+    }
+
+    public static ShardingContext get() {
+        return CONTEXT.get();
+    }
+
+    static void set(ShardingContext context) {
+        CONTEXT.set(context);
+    }
+
+    static void clear() {
+        CONTEXT.remove();
+    }
+
+    public int getShareId() {
+        return shareId;
+    }
+
+    public int getTotalShare() {
+        return totalShare;
+    }
+
+    @Override
+    public String toString() {
+        return shareId + "/" + totalShare;
+    }
+}
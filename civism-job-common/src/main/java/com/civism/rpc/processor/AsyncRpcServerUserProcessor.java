@@ -0,0 +1,127 @@
+package com.civism.rpc.processor;
+
+import com.alipay.remoting.AsyncContext;
+import com.alipay.remoting.BizContext;
+import com.alipay.remoting.rpc.protocol.AsyncUserProcessor;
+import com.civism.rpc.RpcErrorResponse;
+import com.civism.rpc.RpcRequest;
+import com.civism.rpc.RpcRequestInvoker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * @author star
+ * @date 2026/10/18 下午5:40
+ * 异步执行端处理器
+ * <p>
+ * 每个bean一个独立的有界线程池执行业务方法，执行完通过 AsyncContext 回复，不占用bolt的处理线程；
+ * 线程池满时立即回复 {@link RpcErrorResponse#REJECTED}，调度端可以换机器重试
+ */
+public class AsyncRpcServerUserProcessor extends AsyncUserProcessor<RpcRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRpcServerUserProcessor.class);
+
+    /**
+     * 每个bean的业务线程数
+     */
+    private int bizThreads;
+
+    /**
+     * 每个bean的等待队列长度
+     */
+    private int bizQueueSize;
+
+    /**
+     * 单独指定线程数的bean
+     */
+    private final Map<String, Integer> beanThreads = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    public AsyncRpcServerUserProcessor() {
+        this(8, 64);
+    }
+
+    public AsyncRpcServerUserProcessor(int bizThreads, int bizQueueSize) {
+        this.bizThreads = bizThreads;
+        this.bizQueueSize = bizQueueSize;
+    }
+
+    @Override
+    public void handleRequest(BizContext bizContext, final AsyncContext asyncContext, final RpcRequest request) {
+        try {
+            executorFor(request.getName()).execute(new Runnable() {
+                @Override
+                public void run() {
+                    Object result;
+                    try {
+                        result = RpcRequestInvoker.invoke(request);
+                    } catch (Throwable t) {
+                        logger.error("任务执行异常>>>>>>>requestId={}", request.getRequestId(), t);
+                        result = RpcErrorResponse.error(t.getClass().getName() + ": " + t.getMessage());
+                    }
+                    asyncContext.sendResponse(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("业务线程池已满，拒绝执行>>>>>>>requestId={}, bean={}", request.getRequestId(), request.getName());
+            asyncContext.sendResponse(RpcErrorResponse.rejected("executor saturated, bean=" + request.getName()));
+        }
+    }
+
+    /**
+     * 单独设置某个bean的线程数，需要在该bean第一次调用之前设置
+     */
+    public void setBeanThreads(String beanName, int threads) {
+        beanThreads.put(beanName, threads);
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+    }
+
+    private ThreadPoolExecutor executorFor(final String beanName) {
+        ThreadPoolExecutor executor = executors.get(beanName);
+        if (executor != null) {
+            return executor;
+        }
+        Integer threads = beanThreads.get(beanName);
+        int size = threads == null ? bizThreads : threads;
+        ThreadPoolExecutor newExecutor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(bizQueueSize), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("civism-biz-" + beanName + "-" + count.incrementAndGet());
+                return thread;
+            }
+        }, new ThreadPoolExecutor.AbortPolicy());
+        newExecutor.allowCoreThreadTimeOut(true);
+        executor = executors.putIfAbsent(beanName, newExecutor);
+        if (executor == null) {
+            return newExecutor;
+        }
+        newExecutor.shutdown();
+        return executor;
+    }
+
+    @Override
+    public String interest() {
+        return RpcRequest.class.getName();
+    }
+}
@@ -3,37 +3,48 @@ package com.civism.rpc.processor;
 import com.alipay.remoting.Connection;
 import com.alipay.remoting.ConnectionEventProcessor;
 import com.civism.utils.IpLoadRouteUtils;
-import org.apache.commons.collections.CollectionUtils;
 
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author star
  * @date 2018/8/2 下午5:15
+ * 连接断开时从路由中移除地址，按反向索引只处理该地址所在的bean，移除放到单独线程中不占用IO线程
  */
 public class DisconnectEventProcessor implements ConnectionEventProcessor {
 
+    /**
+     * 单线程执行，断开事件按顺序处理
+     */
+    private static final ExecutorService DISCONNECT_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "civism-disconnect");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private AtomicBoolean dicConnected = new AtomicBoolean();
     private AtomicInteger disConnectTimes = new AtomicInteger();
 
     @Override
-    public void onEvent(String remoteAddr, Connection conn) {
+    public void onEvent(final String remoteAddr, Connection conn) {
         System.out.println("disconnect addr:" + remoteAddr);
-        Set<Map.Entry<String, LinkedBlockingQueue<String>>> mapEntrySet = IpLoadRouteUtils.getMapEntry();
-        for (Map.Entry<String, LinkedBlockingQueue<String>> mapEntry : mapEntrySet) {
-            LinkedBlockingQueue<String> linkedBlockingQueue = mapEntry.getValue();
-            if (CollectionUtils.isNotEmpty(linkedBlockingQueue)) {
-                if (linkedBlockingQueue.contains(remoteAddr)) {
-                    linkedBlockingQueue.remove(remoteAddr);
-                    System.out.println("从缓存移除处： " + remoteAddr);
-                    continue;
+        DISCONNECT_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                Set<String> keys = IpLoadRouteUtils.removeEndpoint(remoteAddr);
+                if (!keys.isEmpty()) {
+                    System.out.println("从缓存移除处： " + remoteAddr + " " + keys);
                 }
             }
-        }
+        });
         System.out.println("断开链接了" + remoteAddr);
         dicConnected.set(true);
         disConnectTimes.incrementAndGet();
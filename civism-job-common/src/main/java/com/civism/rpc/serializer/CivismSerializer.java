@@ -0,0 +1,294 @@
+package com.civism.rpc.serializer;
+
+import com.alipay.remoting.exception.CodecException;
+import com.alipay.remoting.serialization.Serializer;
+import com.alipay.remoting.serialization.SerializerManager;
+import com.civism.rpc.RpcRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author star
+ * @date 2026/10/19 下午4:00
+ * RpcRequest 和调用结果的二进制编码，注册到bolt的 SerializerManager，按任务通过 InvokeContext 选用
+ * <p>
+ * 参数类型常用的用1字节编号，其他的写类名，解码时类名对应的Class缓存起来不再加载；
+ * 参数和结果中的 String、int、long、boolean、double、null 直接写二进制，其他对象交给hessian
+ */
+public class CivismSerializer implements Serializer {
+
+    public static final byte ID = 11;
+
+    private static final byte FORMAT = 1;
+
+    private static final byte KIND_REQUEST = 1;
+    private static final byte KIND_VALUE = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte HESSIAN = 9;
+
+    /**
+     * 常用参数类型，下标+1为编号，0表示后面跟着类名；只能在末尾追加
+     */
+    private static final Class[] TYPES = {
+            String.class, Integer.class, int.class, Long.class, long.class, Boolean.class, boolean.class,
+            Double.class, double.class, Float.class, float.class, Short.class, short.class, Byte.class, byte.class,
+            Character.class, char.class, Object.class, Map.class, List.class, Set.class, Date.class, BigDecimal.class,
+            String[].class, Object[].class, byte[].class, HashMap.class, ArrayList.class
+    };
+
+    private static final Map<Class, Integer> TYPE_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_IDS.put(TYPES[i], i + 1);
+        }
+    }
+
+    private static final ConcurrentHashMap<String, Class> CLASSES = new ConcurrentHashMap<>();
+
+    private static volatile boolean registered = false;
+
+    /**
+     * 其他对象的编码，为null时用bolt注册的hessian
+     */
+    private final Serializer fallback;
+
+    public CivismSerializer() {
+        this(null);
+    }
+
+    /**
+     * @param fallback 代替hessian编码其他对象，为null时用hessian
+     */
+    public CivismSerializer(Serializer fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * 注册到bolt，调用端和执行端都要注册
+     */
+    public static void register() {
+        if (registered) {
+            return;
+        }
+        synchronized (CivismSerializer.class) {
+            if (!registered) {
+                SerializerManager.addSerializer(ID, new CivismSerializer());
+                registered = true;
+            }
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object obj) throws CodecException {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+             DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeByte(FORMAT);
+            if (obj instanceof RpcRequest) {
+                out.writeByte(KIND_REQUEST);
+                writeRequest(out, (RpcRequest) obj);
+            } else {
+                out.writeByte(KIND_VALUE);
+                writeValue(out, obj);
+            }
+            out.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new CodecException("IOException occurred when civism serializer encode!", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(byte[] data, String classOfT) throws CodecException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte format = in.readByte();
+            if (format != FORMAT) {
+                throw new CodecException("unsupported civism serializer format:" + format);
+            }
+            byte kind = in.readByte();
+            if (kind == KIND_REQUEST) {
+                return (T) readRequest(in);
+            }
+            return (T) readValue(in);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new CodecException("IOException occurred when civism serializer decode!", e);
+        }
+    }
+
+    private void writeRequest(DataOutputStream out, RpcRequest request) throws IOException {
+        writeString(out, request.getRequestId());
+        writeString(out, request.getName());
+        writeString(out, request.getMethod());
+        writeInteger(out, request.getTaskId());
+        writeInteger(out, request.getShareId());
+        writeInteger(out, request.getTotalShare());
+        Class[] paramsType = request.getParamsType();
+        out.writeInt(paramsType == null ? -1 : paramsType.length);
+        if (paramsType != null) {
+            for (Class type : paramsType) {
+                Integer id = TYPE_IDS.get(type);
+                if (id != null) {
+                    out.writeByte(id);
+                } else {
+                    out.writeByte(0);
+                    writeString(out, type.getName());
+                }
+            }
+        }
+        Object[] params = request.getParams();
+        out.writeInt(params == null ? -1 : params.length);
+        if (params != null) {
+            for (Object param : params) {
+                writeValue(out, param);
+            }
+        }
+    }
+
+    private RpcRequest readRequest(DataInputStream in) throws IOException, ClassNotFoundException, CodecException {
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(readString(in));
+        request.setName(readString(in));
+        request.setMethod(readString(in));
+        request.setTaskId(readInteger(in));
+        request.setShareId(readInteger(in));
+        request.setTotalShare(readInteger(in));
+        int typeCount = in.readInt();
+        if (typeCount >= 0) {
+            Class[] paramsType = new Class[typeCount];
+            for (int i = 0; i < typeCount; i++) {
+                int id = in.readUnsignedByte();
+                paramsType[i] = id == 0 ? loadClass(readString(in)) : TYPES[id - 1];
+            }
+            request.setParamsType(paramsType);
+        }
+        int paramCount = in.readInt();
+        if (paramCount >= 0) {
+            Object[] params = new Object[paramCount];
+            for (int i = 0; i < paramCount; i++) {
+                params[i] = readValue(in);
+            }
+            request.setParams(params);
+        }
+        return request;
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else {
+            byte[] bytes;
+            try {
+                bytes = hessian().serialize(value);
+            } catch (CodecException e) {
+                throw new IOException(e);
+            }
+            out.writeByte(HESSIAN);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException, CodecException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            case DOUBLE:
+                return in.readDouble();
+            case HESSIAN:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return hessian().deserialize(bytes, null);
+            default:
+                throw new CodecException("unknown value tag:" + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static Class loadClass(String name) throws ClassNotFoundException {
+        Class clazz = CLASSES.get(name);
+        if (clazz == null) {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            clazz = Class.forName(name, false, classLoader == null ? CivismSerializer.class.getClassLoader() : classLoader);
+            CLASSES.put(name, clazz);
+        }
+        return clazz;
+    }
+
+    private Serializer hessian() {
+        return fallback != null ? fallback : SerializerManager.getSerializer(SerializerManager.Hessian2);
+    }
+}
@@ -0,0 +1,106 @@
+package com.civism.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午3:02
+ * 一个bean下的执行地址环
+ * <p>
+ * 地址列表是不可变数组，增删时复制一份新数组再发布；轮询只读当前数组加原子游标，不加锁也不分配对象
+ */
+public class EndpointRing<V> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private volatile Object[] endpoints = EMPTY;
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * 轮询取下一个地址
+     *
+     * @return 没有地址时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V next() {
+        Object[] snapshot = endpoints;
+        int length = snapshot.length;
+        if (length == 0) {
+            return null;
+        }
+        if (length == 1) {
+            return (V) snapshot[0];
+        }
+        int index = (cursor.getAndIncrement() & Integer.MAX_VALUE) % length;
+        return (V) snapshot[index];
+    }
+
+    /**
+     * @return false 表示地址已存在
+     */
+    public synchronized boolean add(V value) {
+        Object[] current = endpoints;
+        for (Object endpoint : current) {
+            if (endpoint.equals(value)) {
+                return false;
+            }
+        }
+        Object[] copy = Arrays.copyOf(current, current.length + 1);
+        copy[current.length] = value;
+        endpoints = copy;
+        return true;
+    }
+
+    /**
+     * @return false 表示地址不存在
+     */
+    public synchronized boolean remove(V value) {
+        Object[] current = endpoints;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(value)) {
+                Object[] copy = new Object[current.length - 1];
+                System.arraycopy(current, 0, copy, 0, i);
+                System.arraycopy(current, i + 1, copy, i, current.length - i - 1);
+                endpoints = copy;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(V value) {
+        for (Object endpoint : endpoints) {
+            if (endpoint.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return endpoints.length;
+    }
+
+    public boolean isEmpty() {
+        return endpoints.length == 0;
+    }
+
+    /**
+     * @return 当前地址的只读快照
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> snapshot() {
+        return (List<V>) Collections.unmodifiableList(Arrays.asList(endpoints));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Set<V> toSet() {
+        return new LinkedHashSet<>((List<V>) Arrays.asList(endpoints));
+    }
+}
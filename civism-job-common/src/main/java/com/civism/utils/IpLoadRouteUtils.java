@@ -4,7 +4,6 @@ import org.apache.commons.collections.CollectionUtils;
 
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * @author star
@@ -13,42 +12,66 @@ import java.util.concurrent.LinkedBlockingQueue;
 public class IpLoadRouteUtils {
 
 
-    private static MapBlockingQueue<String, String> mapIpBlockingQueue = new MapBlockingQueue<>();
+    private static MapEndpointRing<String, String> mapEndpointRing = new MapEndpointRing<>();
 
     public static void put(String key, Set<String> values) {
         if (CollectionUtils.isEmpty(values)) {
             return;
         }
         for (String value : values) {
-            mapIpBlockingQueue.put(key, value);
+            mapEndpointRing.put(key, value);
         }
     }
 
     public static void put(String key, String value) {
-        mapIpBlockingQueue.put(key, value);
+        mapEndpointRing.put(key, value);
     }
 
 
     public static String get(String key) {
-        return mapIpBlockingQueue.get(key);
+        return mapEndpointRing.get(key);
     }
 
     public static Set<String> getValues(String key) {
-        return mapIpBlockingQueue.getValues(key);
+        return mapEndpointRing.getValues(key);
     }
 
 
     public static void remove(String key, String value) {
-        mapIpBlockingQueue.remove(key, value);
+        mapEndpointRing.remove(key, value);
     }
 
     public static void removeAll(String key) {
-        mapIpBlockingQueue.removeAll(key);
+        mapEndpointRing.removeAll(key);
     }
 
+    /**
+     * 从所有key中移除地址，连接断开时使用
+     *
+     * @return 移除了该地址的key
+     */
+    public static Set<String> removeEndpoint(String value) {
+        return mapEndpointRing.removeValue(value);
+    }
+
+    public static Set<String> getKeys(String value) {
+        return mapEndpointRing.getKeys(value);
+    }
+
+    /**
+     * 地址从所有key中移除后回调，用来清除按地址统计的数据
+     */
+    public static void addRemovalListener(MapEndpointRing.RemovalListener<String> listener) {
+        mapEndpointRing.addRemovalListener(listener);
+    }
+
+
+    public static EndpointRing<String> getRing(String key) {
+        return mapEndpointRing.getRing(key);
+    }
 
-    public static Set<Map.Entry<String, LinkedBlockingQueue<String>>> getMapEntry() {
-        return mapIpBlockingQueue.getMapEntry();
+    public static Set<Map.Entry<String, EndpointRing<String>>> getMapEntry() {
+        return mapEndpointRing.getMapEntry();
     }
 
 }
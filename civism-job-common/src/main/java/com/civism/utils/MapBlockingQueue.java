@@ -14,7 +14,9 @@ import java.util.concurrent.TimeUnit;
  * @author star
  * @date 2018/8/8 下午3:13
  * 满足先进先出 实现负载均衡
+ * @deprecated 每次轮询都要出队再入队，换成 {@link MapEndpointRing}
  */
+@Deprecated
 public class MapBlockingQueue<K, V> {
 
     private  ConcurrentHashMap<K, LinkedBlockingQueue<V>> balanceLoadMap = new ConcurrentHashMap<>();
@@ -0,0 +1,159 @@
+package com.civism.utils;
+
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午3:10
+ * 按key维护地址环，实现轮询负载均衡，替代 MapBlockingQueue
+ * <p>
+ * 同时维护地址到key的反向索引，连接断开时只处理该地址所在的key；
+ * 写操作加锁保证索引和地址环一致，读操作不加锁；
+ * 地址从所有key中移除后通知 {@link RemovalListener}，按地址统计的数据可以一起清除
+ */
+public class MapEndpointRing<K, V> {
+
+    private ConcurrentHashMap<K, EndpointRing<V>> balanceLoadMap = new ConcurrentHashMap<>();
+
+    /**
+     * 地址所在的key
+     */
+    private ConcurrentHashMap<V, Set<K>> keyIndex = new ConcurrentHashMap<>();
+
+    private final List<RemovalListener<V>> removalListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 地址已经不在任何key中
+     */
+    public interface RemovalListener<V> {
+        /**
+         * 在写锁内回调，只做清理，不能再修改地址环
+         */
+        void removed(V value);
+    }
+
+    public void addRemovalListener(RemovalListener<V> listener) {
+        removalListeners.add(listener);
+    }
+
+    public synchronized void put(K key, V value) {
+        EndpointRing<V> ring = balanceLoadMap.get(key);
+        if (ring == null) {
+            EndpointRing<V> newRing = new EndpointRing<>();
+            ring = balanceLoadMap.putIfAbsent(key, newRing);
+            if (ring == null) {
+                ring = newRing;
+            }
+        }
+        ring.add(value);
+        Set<K> keys = keyIndex.get(value);
+        if (keys == null) {
+            keys = ConcurrentHashMap.newKeySet();
+            keyIndex.put(value, keys);
+        }
+        keys.add(key);
+    }
+
+    public V get(K key) {
+        EndpointRing<V> ring = balanceLoadMap.get(key);
+        if (ring == null) {
+            return null;
+        }
+        return ring.next();
+    }
+
+    public EndpointRing<V> getRing(K key) {
+        return balanceLoadMap.get(key);
+    }
+
+    public int size(K key) {
+        EndpointRing<V> ring = balanceLoadMap.get(key);
+        if (ring == null) {
+            return 0;
+        }
+        return ring.size();
+    }
+
+    public Set<V> getValues(K key) {
+        EndpointRing<V> ring = balanceLoadMap.get(key);
+        if (ring == null || ring.isEmpty()) {
+            return null;
+        }
+        return ring.toSet();
+    }
+
+    public synchronized boolean remove(K key, V value) {
+        unindex(key, value);
+        EndpointRing<V> ring = balanceLoadMap.get(key);
+        if (ring == null) {
+            return false;
+        }
+        return ring.remove(value);
+    }
+
+    public synchronized void removeAll(K key) {
+        EndpointRing<V> ring = balanceLoadMap.remove(key);
+        if (ring != null) {
+            for (V value : ring.snapshot()) {
+                unindex(key, value);
+            }
+        }
+    }
+
+    /**
+     * 从所有key中移除地址
+     *
+     * @return 移除了该地址的key
+     */
+    public synchronized Set<K> removeValue(V value) {
+        Set<K> keys = keyIndex.remove(value);
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        Set<K> removed = new HashSet<>(keys.size());
+        for (K key : keys) {
+            EndpointRing<V> ring = balanceLoadMap.get(key);
+            if (ring != null && ring.remove(value)) {
+                removed.add(key);
+            }
+        }
+        fireRemoved(value);
+        return removed;
+    }
+
+    /**
+     * 地址所在的key
+     */
+    public Set<K> getKeys(V value) {
+        Set<K> keys = keyIndex.get(value);
+        return keys == null ? Collections.<K>emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    private void unindex(K key, V value) {
+        Set<K> keys = keyIndex.get(value);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keyIndex.remove(value);
+                fireRemoved(value);
+            }
+        }
+    }
+
+    public Set<Map.Entry<K, EndpointRing<V>>> getMapEntry() {
+        return balanceLoadMap.entrySet();
+    }
+
+    private void fireRemoved(V value) {
+        for (RemovalListener<V> listener : removalListeners) {
+            listener.removed(value);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.civism.zookeeper;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author star
+ * @date 2026/10/20 上午10:30
+ * 注册中心 /guava/beanName/ip:port 的本地镜像，每个bean一个不可变的快照
+ * <p>
+ * 由 WatcherProcess 在每次同步子节点后整体更新，只镜像已经监听的节点；
+ * 读取不加锁，快照的 version 全局递增，比较 version 就能知道是否有变化。
+ * 最后一次子节点增删的zxid（pzxid）没变的同步不生成新快照；不用 cversion，
+ * 节点删除重建后 cversion 从0重新计数，可能和删除前的快照相同而漏掉变化
+ */
+public class RegistryCache {
+
+    /**
+     * 镜像的根节点，如 /guava
+     */
+    private final String root;
+
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 根节点下的bean
+     */
+    private volatile Snapshot beans;
+
+    private final AtomicLong version = new AtomicLong();
+
+    public RegistryCache(String root) {
+        this.root = root.endsWith("/") ? root.substring(0, root.length() - 1) : root;
+        this.beans = new Snapshot(this.root, 0, -1, Collections.<String>emptySet());
+    }
+
+    /**
+     * bean的快照
+     *
+     * @return 没有镜像时返回null
+     */
+    public Snapshot get(String beanName) {
+        return snapshots.get(beanName);
+    }
+
+    /**
+     * 根节点下的bean快照
+     */
+    public Snapshot getBeans() {
+        return beans;
+    }
+
+    /**
+     * 当前最新的版本，任意bean变化都会增加
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public String getRoot() {
+        return root;
+    }
+
+    /**
+     * 子节点同步后更新镜像，不在根节点下的路径忽略
+     *
+     * @param path     同步的节点
+     * @param children 全部子节点
+     * @param pzxid    最后一次子节点增删的zxid
+     */
+    public synchronized void update(String path, List<String> children, long pzxid) {
+        if (root.equals(path)) {
+            if (beans.pzxid == pzxid) {
+                return;
+            }
+            beans = new Snapshot(root, version.incrementAndGet(), pzxid, children);
+            //bean节点删除后不会再同步，这里一起清除
+            for (Map.Entry<String, Snapshot> entry : snapshots.entrySet()) {
+                if (!beans.contains(entry.getKey())) {
+                    snapshots.remove(entry.getKey());
+                }
+            }
+            return;
+        }
+        if (!path.startsWith(root + "/")) {
+            return;
+        }
+        String beanName = path.substring(root.length() + 1);
+        if (beanName.indexOf('/') >= 0) {
+            return;
+        }
+        Snapshot old = snapshots.get(beanName);
+        if (old != null && old.pzxid == pzxid) {
+            return;
+        }
+        snapshots.put(beanName, new Snapshot(beanName, version.incrementAndGet(), pzxid, children));
+    }
+
+    /**
+     * 某一时刻一个节点下的全部子节点，创建后不再修改
+     */
+    public static final class Snapshot {
+
+        private final String name;
+
+        private final long version;
+
+        private final long pzxid;
+
+        private final Set<String> children;
+
+        Snapshot(String name, long version, long pzxid, Collection<String> children) {
+            this.name = name;
+            this.version = version;
+            this.pzxid = pzxid;
+            this.children = Collections.unmodifiableSet(new LinkedHashSet<>(children));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 生成快照时的全局版本
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * zookeeper 节点最后一次子节点增删的zxid
+         */
+        public long getPzxid() {
+            return pzxid;
+        }
+
+        /**
+         * 子节点，bean的快照中是执行机器 ip:port
+         */
+        public Set<String> getChildren() {
+            return children;
+        }
+
+        public boolean contains(String child) {
+            return children.contains(child);
+        }
+
+        @Override
+        public String toString() {
+            return name + "@" + version + children;
+        }
+    }
+}
@@ -5,15 +5,19 @@ import com.civism.zookeeper.listener.Listener;
 import com.civism.zookeeper.listener.StateListener;
 import com.civism.zookeeper.watcher.WatcherProcess;
 import com.civism.zookeeper.watcher.ZkWatcher;
+import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
@@ -26,6 +30,11 @@ public class ZkClient {
 
     private static final Logger logger = LoggerFactory.getLogger(ZkClient.class);
 
+    /**
+     * 默认的监听回调道数
+     */
+    public static final int DEFAULT_LISTENER_POOL_SIZE = 4;
+
     /**
      * zookeeper 服务地址
      */
@@ -57,22 +66,22 @@ public class ZkClient {
     }
 
     public ZkClient(String hosts, int sessionTimeout, int connTimeout) {
-        this(hosts, 30000, 3000, 1);
+        this(hosts, sessionTimeout, connTimeout, DEFAULT_LISTENER_POOL_SIZE);
     }
 
 
     /**
-     * @param hosts             zookeeper服务地址
-     * @param sessionTimeout    会话超时时间
-     * @param connTimeout       连接超时时间
-     * @param watcherThreadSize 处理watcher的线程数
+     * @param hosts            zookeeper服务地址
+     * @param sessionTimeout   会话超时时间
+     * @param connTimeout      连接超时时间
+     * @param listenerPoolSize 监听回调的道数，同一节点的回调在同一道上按顺序执行
      */
-    public ZkClient(String hosts, int sessionTimeout, int connTimeout, int watcherThreadSize) {
+    public ZkClient(String hosts, int sessionTimeout, int connTimeout, int listenerPoolSize) {
         this.hosts = hosts;
         this.sessionTimeout = sessionTimeout;
         this.connTimeout = connTimeout;
         watcher = new ZkWatcher(connLock, this);
-        this.process = new WatcherProcess(this, watcherThreadSize);
+        this.process = new WatcherProcess(this, listenerPoolSize);
         this.connection();
     }
 
@@ -106,6 +115,52 @@ public class ZkClient {
     }
 
 
+    /**
+     * 获取节点下的数据和节点状态
+     *
+     * @param path 节点路径
+     * @param stat 返回节点状态，版本号等
+     * @return
+     * @throws ZkClientException
+     */
+    public byte[] getData(String path, Stat stat) throws ZkClientException {
+        this.checkStatus();
+        try {
+            return this.zk.getData(path, false, stat);
+        } catch (Exception e) {
+            throw new ZkClientException("getData node " + path, e);
+        }
+    }
+
+    /**
+     * 异步获取节点下的数据，请求发出后立即返回，多个请求可以同时在途
+     * 回调在zookeeper的事件线程中执行，不要在事件线程里阻塞等待返回的future
+     *
+     * @param path    节点路径
+     * @param watcher 是否对该节点进行数据变动监听（只能收到一次变动消息）
+     * @return 节点数据，失败时以 ZkClientException 结束，cause 为 KeeperException
+     */
+    public CompletableFuture<byte[]> getDataAsync(final String path, boolean watcher) {
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        try {
+            this.checkStatus();
+            this.zk.getData(path, watcher, new AsyncCallback.DataCallback() {
+                @Override
+                public void processResult(int rc, String p, Object ctx, byte[] data, Stat stat) {
+                    if (rc == KeeperException.Code.OK.intValue()) {
+                        future.complete(data);
+                    } else {
+                        future.completeExceptionally(new ZkClientException("getData node " + path,
+                                KeeperException.create(KeeperException.Code.get(rc), p)));
+                    }
+                }
+            }, null);
+        } catch (Exception e) {
+            future.completeExceptionally(e instanceof ZkClientException ? e : new ZkClientException("getData node " + path, e));
+        }
+        return future;
+    }
+
     /**
      * 插入数据
      *
@@ -148,6 +203,51 @@ public class ZkClient {
     }
 
 
+    /**
+     * 获取child节点信息和节点状态
+     *
+     * @param path    路径
+     * @param watcher 是否监听子节点变化
+     * @param stat    返回节点状态，pzxid 为最后一次子节点增删的zxid
+     * @throws ZkClientException
+     */
+    public List<String> getChild(String path, boolean watcher, Stat stat) throws ZkClientException {
+        this.checkStatus();
+        try {
+            return this.zk.getChildren(path, watcher, stat);
+        } catch (Exception e) {
+            throw new ZkClientException("getChildren node " + path, e);
+        }
+    }
+
+    /**
+     * 异步获取child节点信息，回调在zookeeper的事件线程中执行
+     *
+     * @param path    路径
+     * @param watcher 是否监听子节点变化
+     * @return 子节点名称，失败时以 ZkClientException 结束，cause 为 KeeperException
+     */
+    public CompletableFuture<List<String>> getChildAsync(final String path, boolean watcher) {
+        final CompletableFuture<List<String>> future = new CompletableFuture<>();
+        try {
+            this.checkStatus();
+            this.zk.getChildren(path, watcher, new AsyncCallback.ChildrenCallback() {
+                @Override
+                public void processResult(int rc, String p, Object ctx, List<String> children) {
+                    if (rc == KeeperException.Code.OK.intValue()) {
+                        future.complete(children);
+                    } else {
+                        future.completeExceptionally(new ZkClientException("getChildren node " + path,
+                                KeeperException.create(KeeperException.Code.get(rc), p)));
+                    }
+                }
+            }, null);
+        } catch (Exception e) {
+            future.completeExceptionally(e instanceof ZkClientException ? e : new ZkClientException("getChildren node " + path, e));
+        }
+        return future;
+    }
+
     /**
      * 创建节点
      * 不支持多层节点创建
@@ -376,9 +476,10 @@ public class ZkClient {
 
 
     /**
-     * 目前只支持2种zookeeper状态
+     * 目前只支持3种zookeeper状态，回调在zookeeper事件线程中执行，不能阻塞
      * 1. KeeperState.Expired session 超时
      * 2. KeeperState.Disconnected 连接断开时
+     * 3. KeeperState.SyncConnected 断开或者超时后重新连上时
      *
      * @param state 监听的状态
      */
@@ -387,8 +488,10 @@ public class ZkClient {
             process.listenState(state, listener);
         } else if (state.getIntValue() == Watcher.Event.KeeperState.Disconnected.getIntValue()) {
             process.listenState(state, listener);
+        } else if (state.getIntValue() == Watcher.Event.KeeperState.SyncConnected.getIntValue()) {
+            process.listenState(state, listener);
         } else {
-            throw new ZkClientException("Listener state not is Expired or Disconnected.");
+            throw new ZkClientException("Listener state not is Expired, Disconnected or SyncConnected.");
         }
     }
 
@@ -431,6 +534,27 @@ public class ZkClient {
     }
 
 
+    /**
+     * 设置注册中心本地镜像，子节点同步后更新
+     */
+    public void setRegistryCache(RegistryCache registryCache) {
+        this.process.setRegistryCache(registryCache);
+    }
+
+    /**
+     * 监听回调的道数，需要在开始监听前设置
+     */
+    public void setListenerPoolSize(int listenerPoolSize) {
+        this.process.setListenerPoolSize(listenerPoolSize);
+    }
+
+    /**
+     * 子节点变化合并窗口（毫秒），窗口内同一节点的多次变化只同步一次，0为不等待
+     */
+    public void setCoalesceWindow(long coalesceWindow) {
+        this.process.setCoalesceWindow(coalesceWindow);
+    }
+
     /**
      * 重连zookeeper
      *
@@ -442,7 +566,7 @@ public class ZkClient {
     }
 
     /**
-     * 关闭客户端
+     * 关闭客户端，同时关闭监听回调和子节点同步的线程
      *
      * @throws ZkClientException
      */
@@ -453,6 +577,8 @@ public class ZkClient {
             }
         } catch (InterruptedException e) {
             throw new ZkClientException("close zookeeper client error.", e);
+        } finally {
+            this.process.shutdown();
         }
     }
 
@@ -3,6 +3,7 @@ package com.civism.zookeeper.listener;
 import org.apache.zookeeper.Watcher;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -32,6 +33,14 @@ public class ListenerManager {
      * 是否监听孩子节点的变化
      */
     private boolean childChange;
+    /**
+     * 上一批子节点变化处理完成，批次按顺序应用
+     */
+    private CompletableFuture<Void> applied = CompletableFuture.completedFuture(null);
+    /**
+     * 上次同步时最后一次子节点增删的zxid（pzxid），-1表示需要重新比较
+     */
+    private volatile long pzxid = -1;
 
 
     public ListenerManager(Listener listener) {
@@ -91,4 +100,24 @@ public class ListenerManager {
     public void setChildChange(boolean childChange) {
         this.childChange = childChange;
     }
+
+    public long getPzxid() {
+        return pzxid;
+    }
+
+    public void setPzxid(long pzxid) {
+        this.pzxid = pzxid;
+    }
+
+    /**
+     * 登记新的一批子节点变化
+     *
+     * @param next 本批次处理完成
+     * @return 上一批次处理完成
+     */
+    public synchronized CompletableFuture<Void> nextBatch(CompletableFuture<Void> next) {
+        CompletableFuture<Void> previous = applied;
+        applied = next;
+        return previous;
+    }
 }
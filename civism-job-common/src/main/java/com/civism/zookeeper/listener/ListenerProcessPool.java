@@ -3,27 +3,47 @@ package com.civism.zookeeper.listener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author star
  * @date 2018/8/3 下午2:08
+ * 监听回调按节点路径分道执行，同一路径固定在一个单线程的道上，保证回调顺序；
+ * 队列不限长度，事件不会被拒绝丢弃
  */
 public class ListenerProcessPool {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(ListenerProcessPool.class);
 
 
-    private volatile ThreadPoolExecutor processPool;
+    private final ThreadPoolExecutor[] lanes;
+
+    /**
+     * 提交的回调数
+     */
+    private final AtomicLong submitted = new AtomicLong();
+    /**
+     * 执行完的回调数
+     */
+    private final AtomicLong completed = new AtomicLong();
+    /**
+     * 执行异常的回调数
+     */
+    private final AtomicLong failed = new AtomicLong();
 
     public ListenerProcessPool() {
         this(2);
     }
 
     public ListenerProcessPool(int listenerPoolSize) {
-        processPool = new ThreadPoolExecutor(1, listenerPoolSize, 30000, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(100), new ThreadProcessFactory());
+        lanes = new ThreadPoolExecutor[Math.max(1, listenerPoolSize)];
+        ThreadProcessFactory threadFactory = new ThreadProcessFactory();
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        }
     }
 
     /**
@@ -35,7 +55,8 @@ public class ListenerProcessPool {
 
     public void invoker(final String path, final ListenerManager manager) {
         if (manager != null) {
-            processPool.submit(new Runnable() {
+            submitted.incrementAndGet();
+            lane(path).execute(new Runnable() {
                 @Override
                 public void run() {
                     Listener listener = manager.getListener();
@@ -43,11 +64,66 @@ public class ListenerProcessPool {
                         try {
                             listener.listen(path, manager.getEventType(), manager.getData());
                         } catch (Exception e) {
+                            failed.incrementAndGet();
                             LOGGER.error("Invoker listener callback error.", e);
                         }
                     }
+                    completed.incrementAndGet();
                 }
             });
         }
     }
+
+    private ThreadPoolExecutor lane(String path) {
+        int hash = path == null ? 0 : path.hashCode();
+        hash ^= hash >>> 16;
+        return lanes[(hash & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    /**
+     * 等待执行的回调数
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * 等待最多的道上的回调数
+     */
+    public int getMaxLaneQueued() {
+        int max = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            max = Math.max(max, lane.getQueue().size());
+        }
+        return max;
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * 道数
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
 }
@@ -1,19 +1,33 @@
 package com.civism.zookeeper.watcher;
 
 
+import com.civism.zookeeper.RegistryCache;
 import com.civism.zookeeper.ZkClient;
 import com.civism.zookeeper.ZkClientException;
 import com.civism.zookeeper.listener.*;
 import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  * @author star
@@ -22,6 +36,10 @@ import java.util.concurrent.ConcurrentHashMap;
 public class WatcherProcess {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(WatcherProcess.class);
+    /**
+     * 初次监听等待子节点数据的最长时间
+     */
+    private static final long LOAD_TIMEOUT_SECONDS = 30;
     private ZkClient zkClient;
     /**
      * 节点监听池
@@ -36,10 +54,42 @@ public class WatcherProcess {
      */
     private final ConcurrentHashMap<String, Node> stubbornNodePool = new ConcurrentHashMap<>();
     /**
-     * 客户端状态监听池
+     * 客户端状态监听池，同一状态可以有多个监听器
+     */
+    private final ConcurrentHashMap<Integer, List<StateListener>> statePool = new ConcurrentHashMap<>();
+    private volatile ListenerProcessPool listenerPool = null;
+    /**
+     * 子节点变化的同步状态
+     */
+    private final ConcurrentHashMap<String, Resync> resyncPool = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService resyncExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "zkClient-resync");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * 子节点变化合并窗口（毫秒）
+     */
+    private volatile long coalesceWindow = 100;
+    /**
+     * 被合并掉的变化次数
+     */
+    private final AtomicLong coalesced = new AtomicLong();
+    /**
+     * 实际执行的同步次数
+     */
+    private final AtomicLong resyncs = new AtomicLong();
+    /**
+     * pzxid 没变跳过比较的同步次数
+     */
+    private final AtomicLong unchanged = new AtomicLong();
+    /**
+     * 注册中心本地镜像
      */
-    private final ConcurrentHashMap<Integer, StateListener> statePool = new ConcurrentHashMap<>();
-    private ListenerProcessPool listenerPool = null;
+    private volatile RegistryCache registryCache;
 
     /**
      * @param zkClient         ZkClinet对象用于操作zookeeper
@@ -52,12 +102,12 @@ public class WatcherProcess {
 
     /**
      * watch事件处理类
-     * 设置处理监听事件线程数为2
+     * 设置处理监听事件线程数为 ZkClient.DEFAULT_LISTENER_POOL_SIZE
      *
      * @param zkClient
      */
     public WatcherProcess(ZkClient zkClient) {
-        this(zkClient, 2);
+        this(zkClient, ZkClient.DEFAULT_LISTENER_POOL_SIZE);
     }
 
     /**
@@ -103,6 +153,7 @@ public class WatcherProcess {
                 }
             }
             nodeListenerPool.remove(path);
+            resyncPool.remove(path);
         } else {
             if (zkClient.exists(path)) {
                 this.zkClient.getData(path, false);
@@ -137,7 +188,12 @@ public class WatcherProcess {
      * @param listener
      */
     public void listenState(Watcher.Event.KeeperState state, StateListener listener) {
-        this.statePool.put(state.getIntValue(), listener);
+        List<StateListener> listeners = statePool.get(state.getIntValue());
+        if (listeners == null) {
+            statePool.putIfAbsent(state.getIntValue(), new CopyOnWriteArrayList<StateListener>());
+            listeners = statePool.get(state.getIntValue());
+        }
+        listeners.add(listener);
     }
 
     public void nulistenState(Watcher.Event.KeeperState state) {
@@ -150,9 +206,16 @@ public class WatcherProcess {
      * @param state
      */
     public void listen(Watcher.Event.KeeperState state) {
-        StateListener listener = statePool.get(state.getIntValue());
-        if (listener != null) {
-            listener.listen(state);
+        List<StateListener> listeners = statePool.get(state.getIntValue());
+        if (listeners == null) {
+            return;
+        }
+        for (StateListener listener : listeners) {
+            try {
+                listener.listen(state);
+            } catch (Exception e) {
+                LOGGER.error("State listener callback error, state:{}", state, e);
+            }
         }
     }
 
@@ -179,34 +242,124 @@ public class WatcherProcess {
 
     /**
      * 子节点变化处理函数
+     * 初次监听同步执行；监听事件触发的变化先合并，窗口结束后同步一次，同一节点最多一个同步在进行，
+     * 同步期间再有变化只做标记，结束后再同步一次，监听器收到的是合并后的净变化
      *
      * @param path 节点路径
      * @param init 是否是初次监听，第一次监听将阻塞返回结果
      */
     public void childChange(String path, boolean init) throws ZkClientException {
-        if (nodeListenerPool.containsKey(path)) {
-            try {
-                List<String> changeNodes = this.zkClient.getChild(path, true);
-                ListenerManager manager = nodeListenerPool.get(path);
-                this.diff(path, changeNodes, manager, init);
-            } catch (Exception e) {
-                throw new ZkClientException("Listener client node change error.", e);
+        if (init) {
+            this.syncChild(path, true);
+        } else if (nodeListenerPool.containsKey(path)) {
+            this.resync(path);
+        }
+    }
+
+    /**
+     * 读取子节点并比较变化
+     *
+     * @return 本次变化处理完成
+     */
+    private CompletableFuture<Void> syncChild(String path, boolean init) throws ZkClientException {
+        ListenerManager manager = nodeListenerPool.get(path);
+        if (manager == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            Stat stat = new Stat();
+            List<String> changeNodes = this.zkClient.getChild(path, true, stat);
+            if (!init && stat.getPzxid() == manager.getPzxid()) {
+                //子节点没有变化，重连或合并后多出来的同步
+                unchanged.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
             }
+            manager.setPzxid(stat.getPzxid());
+            if (registryCache != null) {
+                registryCache.update(path, changeNodes, stat.getPzxid());
+            }
+            return this.diff(path, changeNodes, manager, init);
+        } catch (Exception e) {
+            throw new ZkClientException("Listener client node change error.", e);
         }
     }
 
+    /**
+     * 登记一次子节点变化，窗口内的多次变化合并
+     */
+    private void resync(String path) {
+        Resync state = resyncPool.get(path);
+        if (state == null) {
+            resyncPool.putIfAbsent(path, new Resync());
+            state = resyncPool.get(path);
+        }
+        synchronized (state) {
+            if (state.scheduled) {
+                coalesced.incrementAndGet();
+                return;
+            }
+            if (state.running) {
+                state.dirty = true;
+                coalesced.incrementAndGet();
+                return;
+            }
+            state.scheduled = true;
+        }
+        this.scheduleResync(path, state);
+    }
+
+    private void scheduleResync(final String path, final Resync state) {
+        resyncExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (state) {
+                    state.scheduled = false;
+                    state.running = true;
+                }
+                resyncs.incrementAndGet();
+                CompletableFuture<Void> done;
+                try {
+                    done = syncChild(path, false);
+                } catch (Exception e) {
+                    LOGGER.error("node:{} resync child error.", path, e);
+                    done = CompletableFuture.completedFuture(null);
+                }
+                done.whenComplete(new BiConsumer<Void, Throwable>() {
+                    @Override
+                    public void accept(Void v, Throwable e) {
+                        finishResync(path, state);
+                    }
+                });
+            }
+        }, coalesceWindow, TimeUnit.MILLISECONDS);
+    }
+
+    private void finishResync(String path, Resync state) {
+        synchronized (state) {
+            state.running = false;
+            if (!state.dirty) {
+                return;
+            }
+            state.dirty = false;
+            state.scheduled = true;
+        }
+        this.scheduleResync(path, state);
+    }
+
     /**
      * 检查子节点变化
+     * 新增子节点的数据请求一次全部发出，全部返回后作为一批应用，同一个节点的多批变化按顺序应用
      *
      * @param changeList 变化后的子节点集合
-     * @return
+     * @return 本批变化应用完成
      */
-    private void diff(String path, List<String> changeList, ListenerManager manager, boolean init) throws ZkClientException, SocketException {
+    private CompletableFuture<Void> diff(final String path, List<String> changeList, final ListenerManager manager, boolean init) throws ZkClientException, SocketException {
         if (changeList == null) {
             changeList = new ArrayList<>();
         }
         Map<String, Boolean> changeMap = new HashMap<>(changeList.size());
         Map<String, Boolean> oldMap = manager.getChildNode();
+        final Map<String, CompletableFuture<byte[]>> created = new LinkedHashMap<>();
         for (String node : changeList) {
             changeMap.put(node, true);
             Boolean status = oldMap.get(node);
@@ -214,24 +367,16 @@ public class WatcherProcess {
                 oldMap.put(node, true);
                 String cpath = path + "/" + node;
                 if (manager.isChildChange() || manager.isChildDataChange()) {
-                    ListenerManager lm = new ListenerManager(manager.getListener());
-                    byte[] data = zkClient.getData(cpath, manager.isChildDataChange());
-                    lm.setData(data);
-                    lm.setEventType(Watcher.Event.EventType.NodeCreated);
-                    if (!init) {
-                        listenerPool.invoker(cpath, lm);
-                    } else {
-                        manager.getListener().listen(cpath, Watcher.Event.EventType.NodeCreated, data);
-                    }
+                    created.put(node, zkClient.getDataAsync(cpath, manager.isChildDataChange()));
                 }
                 if (manager.isChildDataChange()) {
                     ListenerManager dataManager = new ListenerManager(manager.getListener(), false, false);
                     dataListenerPool.put(cpath, dataManager);
                 }
-                LOGGER.debug("node:{} child change,type:node-create", node);
             }
         }
 
+        final List<String> deleted = new ArrayList<>();
         for (Map.Entry<String, Boolean> entry : oldMap.entrySet()) {
             if (!changeMap.containsKey(entry.getKey())) {
                 oldMap.remove(entry.getKey());
@@ -239,15 +384,154 @@ public class WatcherProcess {
                 if (manager.isChildDataChange()) {
                     unlisten(cpath, false, false);
                 }
+                deleted.add(entry.getKey());
+            } else {
+                oldMap.put(entry.getKey(), false);
+            }
+        }
+
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        List<CompletableFuture<?>> waits = new ArrayList<CompletableFuture<?>>(created.values());
+        waits.add(manager.nextBatch(done));
+        CompletableFuture<Void> ready = CompletableFuture.allOf(waits.toArray(new CompletableFuture<?>[waits.size()]));
+        if (init && await(path, ready)) {
+            //初次监听在调用线程里回调，不能放到zookeeper事件线程中，监听器里可能还会阻塞监听其他节点
+            try {
+                this.apply(path, manager, created, deleted, true);
+            } finally {
+                done.complete(null);
+            }
+            return done;
+        }
+        ready.whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void v, Throwable e) {
+                try {
+                    apply(path, manager, created, deleted, false);
+                } catch (Exception ex) {
+                    LOGGER.error("node:{} apply child change error.", path, ex);
+                } finally {
+                    done.complete(null);
+                }
+            }
+        });
+        return done;
+    }
+
+    /**
+     * 初次监听等待子节点数据全部返回
+     *
+     * @return 超时或被中断返回false，之后转为异步处理
+     */
+    private boolean await(String path, CompletableFuture<Void> ready) {
+        try {
+            ready.get(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            //单个节点失败在应用时处理
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            LOGGER.warn("node:{} load child data timeout, notify asynchronously.", path);
+        }
+        return false;
+    }
+
+    /**
+     * 应用一批子节点变化
+     */
+    private void apply(String path, ListenerManager manager, Map<String, CompletableFuture<byte[]>> created,
+                       List<String> deleted, boolean init) throws ZkClientException, SocketException {
+        for (Map.Entry<String, CompletableFuture<byte[]>> entry : created.entrySet()) {
+            String cpath = path + "/" + entry.getKey();
+            byte[] data;
+            try {
+                data = entry.getValue().join();
+            } catch (CompletionException e) {
+                //读数据时节点已删除或连接断开，等下次子节点变化或重连后重新同步
+                manager.getChildNode().remove(entry.getKey());
+                manager.setPzxid(-1);
+                dataListenerPool.remove(cpath);
+                LOGGER.warn("node:{} load data error, skip.", cpath, e.getCause());
+                continue;
+            }
+            if (!init) {
                 ListenerManager lm = new ListenerManager(manager.getListener());
-                lm.setData(new byte[1]);
-                lm.setEventType(Watcher.Event.EventType.NodeDeleted);
+                lm.setData(data);
+                lm.setEventType(Watcher.Event.EventType.NodeCreated);
                 listenerPool.invoker(cpath, lm);
-                LOGGER.debug("node:{} child change,type:node-delete", entry.getKey());
             } else {
-                oldMap.put(entry.getKey(), false);
+                manager.getListener().listen(cpath, Watcher.Event.EventType.NodeCreated, data);
             }
+            LOGGER.debug("node:{} child change,type:node-create", entry.getKey());
         }
+        for (String node : deleted) {
+            String cpath = path + "/" + node;
+            ListenerManager lm = new ListenerManager(manager.getListener());
+            lm.setData(new byte[1]);
+            lm.setEventType(Watcher.Event.EventType.NodeDeleted);
+            listenerPool.invoker(cpath, lm);
+            LOGGER.debug("node:{} child change,type:node-delete", node);
+        }
+    }
+
+    public long getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    public void setCoalesceWindow(long coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getResyncs() {
+        return resyncs.get();
+    }
+
+    public long getUnchanged() {
+        return unchanged.get();
+    }
+
+    public RegistryCache getRegistryCache() {
+        return registryCache;
+    }
+
+    public void setRegistryCache(RegistryCache registryCache) {
+        this.registryCache = registryCache;
+    }
+
+    /**
+     * 换成新的道数的回调线程池，旧线程池中已提交的回调执行完后关闭；
+     * 换的时候同一节点的回调可能在新旧两个道上同时执行，需要在开始监听前设置
+     */
+    public void setListenerPoolSize(int listenerPoolSize) {
+        ListenerProcessPool old = listenerPool;
+        if (old != null && old.getLaneCount() == Math.max(1, listenerPoolSize)) {
+            return;
+        }
+        listenerPool = new ListenerProcessPool(listenerPoolSize);
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * 关闭监听回调和子节点同步的线程，已提交的回调执行完后结束
+     */
+    public void shutdown() {
+        resyncExecutor.shutdownNow();
+        listenerPool.shutdown();
+    }
+
+    /**
+     * 监听回调线程池，可以读取排队数等指标
+     */
+    public ListenerProcessPool getListenerPool() {
+        return listenerPool;
     }
 
     /**
@@ -269,4 +553,22 @@ public class WatcherProcess {
         }
 
     }
+
+    /**
+     * 单个节点的同步状态
+     */
+    private static class Resync {
+        /**
+         * 已安排同步，还未开始
+         */
+        private boolean scheduled;
+        /**
+         * 同步进行中
+         */
+        private boolean running;
+        /**
+         * 同步期间又有变化
+         */
+        private boolean dirty;
+    }
 }
@@ -37,10 +37,12 @@ public class ZkWatcher implements Watcher {
                     //连接成功
                     connLock.release();
                     logger.warn("Zookeeper connection or retry success......");
+                    this.stateChange(Event.KeeperState.SyncConnected);
                 }
                 break;
             //会话超时
             case Expired:
+                zkClient.setConnection(false);
                 this.stateChange(event.getState());
                 resetSession();
                 break;
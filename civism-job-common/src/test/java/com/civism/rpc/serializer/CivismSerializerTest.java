@@ -0,0 +1,194 @@
+package com.civism.rpc.serializer;
+
+import com.alipay.remoting.exception.CodecException;
+import com.alipay.remoting.serialization.Serializer;
+import com.civism.rpc.RpcRequest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author star
+ * @date 2026/10/20 下午5:10
+ * 二进制编码的往返：每个常用参数类型、类名写出的参数类型、直接编码的值、null，其他对象交给hessian
+ * <p>
+ * hessian 由使用方引入(bolt 中是 provided)，这里用java序列化的桩代替，只验证交给hessian的部分原样往返
+ */
+public class CivismSerializerTest {
+
+    /**
+     * 和 CivismSerializer 的常用类型表一致
+     */
+    private static final Class[] TYPES = {
+            String.class, Integer.class, int.class, Long.class, long.class, Boolean.class, boolean.class,
+            Double.class, double.class, Float.class, float.class, Short.class, short.class, Byte.class, byte.class,
+            Character.class, char.class, Object.class, Map.class, List.class, Set.class, Date.class, BigDecimal.class,
+            String[].class, Object[].class, byte[].class, HashMap.class, ArrayList.class
+    };
+
+    private final StubHessian hessian = new StubHessian();
+
+    private final CivismSerializer serializer = new CivismSerializer(hessian);
+
+    @Test
+    public void 每个常用参数类型往返() throws CodecException {
+        RpcRequest request = request();
+        request.setParamsType(TYPES);
+        RpcRequest decoded = roundTrip(request);
+        assertArrayEquals(TYPES, decoded.getParamsType());
+        //常用类型只写1字节编号
+        request.setParamsType(new Class[]{String.class});
+        int oneType = serializer.serialize(request).length;
+        request.setParamsType(new Class[0]);
+        assertEquals(1, oneType - serializer.serialize(request).length);
+    }
+
+    @Test
+    public void 不在常用类型中的参数类型写类名() throws CodecException {
+        RpcRequest request = request();
+        request.setParamsType(new Class[]{UUID.class, String.class, CivismSerializerTest.class});
+        assertArrayEquals(request.getParamsType(), roundTrip(request).getParamsType());
+    }
+
+    @Test
+    public void 请求字段往返() throws CodecException {
+        RpcRequest request = request();
+        request.setTaskId(7);
+        request.setShareId(1);
+        request.setTotalShare(3);
+        RpcRequest decoded = roundTrip(request);
+        assertEquals(request.getRequestId(), decoded.getRequestId());
+        assertEquals(request.getName(), decoded.getName());
+        assertEquals(request.getMethod(), decoded.getMethod());
+        assertEquals(Integer.valueOf(7), decoded.getTaskId());
+        assertEquals(Integer.valueOf(1), decoded.getShareId());
+        assertEquals(Integer.valueOf(3), decoded.getTotalShare());
+    }
+
+    @Test
+    public void 空字段和没有参数的请求往返() throws CodecException {
+        RpcRequest request = new RpcRequest();
+        RpcRequest decoded = roundTrip(request);
+        assertNull(decoded.getRequestId());
+        assertNull(decoded.getName());
+        assertNull(decoded.getMethod());
+        assertNull(decoded.getTaskId());
+        assertNull(decoded.getShareId());
+        assertNull(decoded.getTotalShare());
+        assertNull(decoded.getParamsType());
+        assertNull(decoded.getParams());
+
+        request.setParamsType(new Class[0]);
+        request.setParams(new Object[0]);
+        decoded = roundTrip(request);
+        assertEquals(0, decoded.getParamsType().length);
+        assertEquals(0, decoded.getParams().length);
+    }
+
+    @Test
+    public void 直接编码的参数往返不经过hessian() throws CodecException {
+        RpcRequest request = request();
+        request.setParamsType(new Class[]{String.class, int.class, Long.class, boolean.class, Double.class, Object.class, String.class});
+        request.setParams(new Object[]{"中文", 1, 2L, true, 3.5d, null, ""});
+        RpcRequest decoded = roundTrip(request);
+        assertArrayEquals(request.getParams(), decoded.getParams());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(request.getParams()[i].getClass(), decoded.getParams()[i].getClass());
+        }
+        assertEquals(0, hessian.count.get());
+    }
+
+    @Test
+    public void 其他参数交给hessian() throws CodecException {
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("k", 1L);
+        RpcRequest request = request();
+        request.setParamsType(new Class[]{Date.class, BigDecimal.class, HashMap.class, Float.class, String[].class});
+        request.setParams(new Object[]{new Date(1760000000000L), new BigDecimal("1.50"), map, 1.5f, new String[]{"a", null}});
+        RpcRequest decoded = roundTrip(request);
+        assertEquals(request.getParams()[0], decoded.getParams()[0]);
+        assertEquals(request.getParams()[1], decoded.getParams()[1]);
+        assertEquals(map, decoded.getParams()[2]);
+        assertEquals(1.5f, decoded.getParams()[3]);
+        assertArrayEquals((String[]) request.getParams()[4], (String[]) decoded.getParams()[4]);
+        assertEquals(10, hessian.count.get());
+    }
+
+    @Test
+    public void 结果往返() throws CodecException {
+        for (Object value : Arrays.asList(null, "ok", 1, 2L, false, 0.25d)) {
+            assertEquals(value, serializer.deserialize(serializer.serialize(value), null));
+        }
+        assertEquals(0, hessian.count.get());
+        List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        assertEquals(list, serializer.deserialize(serializer.serialize(list), null));
+        assertEquals(2, hessian.count.get());
+    }
+
+    @Test(expected = CodecException.class)
+    public void 不认识的格式版本() throws CodecException {
+        serializer.deserialize(new byte[]{9, 2, 0}, null);
+    }
+
+    private RpcRequest roundTrip(RpcRequest request) throws CodecException {
+        return serializer.deserialize(serializer.serialize(request), RpcRequest.class.getName());
+    }
+
+    private static RpcRequest request() {
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(UUID.randomUUID().toString());
+        request.setName("com.civism.test.SerializerBean");
+        request.setMethod("run");
+        return request;
+    }
+
+    /**
+     * 用java序列化代替hessian，记录编码和解码次数
+     */
+    private static class StubHessian implements Serializer {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public byte[] serialize(Object obj) throws CodecException {
+            count.incrementAndGet();
+            try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                 ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(obj);
+                oos.flush();
+                return bos.toByteArray();
+            } catch (IOException e) {
+                throw new CodecException("stub serialize fail", e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialize(byte[] data, String classOfT) throws CodecException {
+            count.incrementAndGet();
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                return (T) ois.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new CodecException("stub deserialize fail", e);
+            }
+        }
+    }
+}
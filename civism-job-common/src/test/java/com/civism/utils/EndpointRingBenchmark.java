@@ -0,0 +1,95 @@
+package com.civism.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午3:40
+ * MapBlockingQueue 和 MapEndpointRing 轮询取地址的吞吐对比
+ * <p>
+ * 直接运行main方法，参数：线程数 每线程次数 地址数
+ */
+@SuppressWarnings("deprecation")
+public class EndpointRingBenchmark {
+
+    private static final String BEAN = "com.civism.service.impl.HelloWordServiceImpl";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int endpoints = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        final MapBlockingQueue<String, String> queue = new MapBlockingQueue<>();
+        final MapEndpointRing<String, String> ring = new MapEndpointRing<>();
+        for (int i = 0; i < endpoints; i++) {
+            String address = "10.0.0." + i + ":3000";
+            queue.put(BEAN, address);
+            ring.put(BEAN, address);
+        }
+
+        Selector queueSelector = new Selector() {
+            @Override
+            public String select() {
+                return queue.get(BEAN);
+            }
+        };
+        Selector ringSelector = new Selector() {
+            @Override
+            public String select() {
+                return ring.get(BEAN);
+            }
+        };
+
+        for (int round = 0; round < 3; round++) {
+            run("warmup MapBlockingQueue", queueSelector, threads, ops / 10);
+            run("warmup MapEndpointRing", ringSelector, threads, ops / 10);
+        }
+        for (int round = 0; round < 5; round++) {
+            run("MapBlockingQueue", queueSelector, threads, ops);
+            run("MapEndpointRing", ringSelector, threads, ops);
+        }
+    }
+
+    private static void run(String name, final Selector selector, int threads, final int ops) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final long[] sink = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            final int slot = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        long hash = 0;
+                        for (int i = 0; i < ops; i++) {
+                            String address = selector.select();
+                            if (address != null) {
+                                hash += address.length();
+                            }
+                        }
+                        sink[slot] = hash;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long cost = System.nanoTime() - begin;
+        long total = (long) threads * ops;
+        System.out.println(String.format("%-28s threads=%d ops=%d cost=%dms throughput=%.0f ops/ms avg=%.1f ns/op",
+                name, threads, total, TimeUnit.NANOSECONDS.toMillis(cost),
+                total / (cost / 1000000.0), (double) cost * threads / total));
+    }
+
+    private interface Selector {
+        String select();
+    }
+}
@@ -0,0 +1,80 @@
+package com.civism.zookeeper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author star
+ * @date 2026/10/21 下午5:10
+ * 注册中心镜像按 pzxid 判断子节点是否变化
+ */
+public class RegistryCacheTest {
+
+    private static final String BEAN = "com.civism.service.HelloService";
+
+    private final RegistryCache cache = new RegistryCache("/guava/");
+
+    @Test
+    public void 子节点变化时生成新快照并增加版本() {
+        cache.update("/guava/" + BEAN, Collections.singletonList("10.0.0.1:8888"), 100);
+        RegistryCache.Snapshot first = cache.get(BEAN);
+        assertEquals(Collections.singleton("10.0.0.1:8888"), first.getChildren());
+
+        cache.update("/guava/" + BEAN, Arrays.asList("10.0.0.1:8888", "10.0.0.2:8888"), 101);
+        RegistryCache.Snapshot second = cache.get(BEAN);
+        assertNotSame(first, second);
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(101, second.getPzxid());
+        assertTrue(second.contains("10.0.0.2:8888"));
+        assertEquals(second.getVersion(), cache.getVersion());
+    }
+
+    @Test
+    public void pzxid没变时不生成新快照() {
+        cache.update("/guava/" + BEAN, Collections.singletonList("10.0.0.1:8888"), 100);
+        RegistryCache.Snapshot first = cache.get(BEAN);
+        long version = cache.getVersion();
+
+        cache.update("/guava/" + BEAN, Collections.singletonList("10.0.0.1:8888"), 100);
+        assertSame(first, cache.get(BEAN));
+        assertEquals(version, cache.getVersion());
+    }
+
+    @Test
+    public void 节点删除重建后子节点相同也生成新快照() {
+        cache.update("/guava/" + BEAN, Collections.singletonList("10.0.0.1:8888"), 100);
+        RegistryCache.Snapshot first = cache.get(BEAN);
+        //重建后 cversion 可能和删除前相同，pzxid 一定更大
+        cache.update("/guava/" + BEAN, Collections.singletonList("10.0.0.1:8888"), 205);
+        assertNotSame(first, cache.get(BEAN));
+        assertEquals(205, cache.get(BEAN).getPzxid());
+    }
+
+    @Test
+    public void 删除的bean从镜像中清除() {
+        cache.update("/guava", Arrays.asList(BEAN, "other"), 10);
+        cache.update("/guava/" + BEAN, Collections.singletonList("10.0.0.1:8888"), 100);
+        cache.update("/guava/other", Collections.singletonList("10.0.0.2:8888"), 101);
+
+        cache.update("/guava", Collections.singletonList("other"), 11);
+        assertNull(cache.get(BEAN));
+        assertEquals(Collections.singleton("10.0.0.2:8888"), cache.get("other").getChildren());
+        assertEquals(Collections.singleton("other"), cache.getBeans().getChildren());
+    }
+
+    @Test
+    public void 不在根节点下的路径忽略() {
+        cache.update("/other/" + BEAN, Collections.singletonList("10.0.0.1:8888"), 100);
+        cache.update("/guava/" + BEAN + "/10.0.0.1:8888", Collections.<String>emptyList(), 101);
+        assertNull(cache.get(BEAN));
+        assertEquals(0, cache.getVersion());
+    }
+}
@@ -2,6 +2,8 @@ package com.civism.dao;
 
 import com.civism.model.JobRecordDO;
 
+import java.util.List;
+
 /**
  * @author star
  * @date 2018/10/25 上午11:59
@@ -10,4 +12,8 @@ public interface JobRecordDao {
     Boolean create(JobRecordDO jobRecordDO);
 
     Boolean update(JobRecordDO jobRecordDO);
+
+    Boolean batchCreate(List<JobRecordDO> jobRecords);
+
+    Boolean batchUpdate(List<JobRecordDO> jobRecords);
 }
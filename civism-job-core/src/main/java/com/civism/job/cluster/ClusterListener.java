@@ -0,0 +1,16 @@
+package com.civism.job.cluster;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午11:05
+ * 调度节点成员变化监听
+ */
+public interface ClusterListener {
+
+    /**
+     * 成员或者leader变化时回调，回调在zookeeper监听线程上执行
+     *
+     * @param cluster 变化后的调度节点信息
+     */
+    void onChange(SchedulerCluster cluster);
+}
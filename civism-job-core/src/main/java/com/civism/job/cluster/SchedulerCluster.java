@@ -0,0 +1,272 @@
+package com.civism.job.cluster;
+
+import com.civism.constants.CivismConstants;
+import com.civism.utils.IpUtils;
+import com.civism.zookeeper.ZkClient;
+import com.civism.zookeeper.ZkClientException;
+import com.civism.zookeeper.listener.Listener;
+import com.civism.zookeeper.listener.StateListener;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午11:00
+ * 调度节点注册和leader选举
+ * <p>
+ * 每个调度节点在 /guava_scheduler/nodes 下注册一个临时顺序节点，序号最小的节点为leader；
+ * 节点增减、会话超时重连后重新读取成员，自己的节点丢失时重新注册
+ * <p>
+ * 和zookeeper的连接断开或者会话超时时立即放弃leader并清空成员，监听器随之停止调度，重新连上后再读取成员；
+ * 断开期间服务端可能已经让会话超时并选出新leader，这样本节点不会和新leader同时触发，
+ * 代价是断开到重新连上之间本节点负责的触发会丢失
+ */
+@Service
+public class SchedulerCluster {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerCluster.class);
+
+    public static final String NODES_PATH = CivismConstants.ZK_SCHEDULER + "/nodes";
+
+    private static final String NODE_PREFIX = "node-";
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    @Resource
+    private ZkClient zkClient;
+
+    private final List<ClusterListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 本节点在zookeeper中的节点名
+     */
+    private volatile String myNode;
+
+    /**
+     * 按注册顺序排列的成员
+     */
+    private volatile List<String> members = Collections.emptyList();
+
+    private volatile boolean leader = false;
+
+    /**
+     * 处理连接状态变化，状态回调在zookeeper事件线程中，不能在那里通知监听器
+     */
+    private final ExecutorService stateExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "civism-scheduler-cluster");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    @PostConstruct
+    public void init() {
+        StateListener lost = new StateListener() {
+            @Override
+            public void listen(Watcher.Event.KeeperState state) {
+                stateExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        lost();
+                    }
+                });
+            }
+        };
+        zkClient.listenState(Watcher.Event.KeeperState.Disconnected, lost);
+        zkClient.listenState(Watcher.Event.KeeperState.Expired, lost);
+        zkClient.listenState(Watcher.Event.KeeperState.SyncConnected, new StateListener() {
+            @Override
+            public void listen(Watcher.Event.KeeperState state) {
+                stateExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        refresh();
+                    }
+                });
+            }
+        });
+        try {
+            ensurePath(NODES_PATH);
+            register();
+            zkClient.listenChild(NODES_PATH, new Listener() {
+                @Override
+                public void listen(String path, Watcher.Event.EventType eventType, byte[] data) {
+                    refresh();
+                }
+            });
+            refresh();
+        } catch (Exception e) {
+            logger.error("调度节点注册失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        stateExecutor.shutdownNow();
+        String node = myNode;
+        myNode = null;
+        if (node != null) {
+            try {
+                zkClient.delete(NODES_PATH + "/" + node);
+            } catch (Exception e) {
+                logger.warn("调度节点注销失败>>>>>>>node={}", node, e);
+            }
+        }
+    }
+
+    public void addListener(ClusterListener listener) {
+        listeners.add(listener);
+        listener.onChange(this);
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public String getMyNode() {
+        return myNode;
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * 分区归属，最高随机权重(rendezvous hash)：每个成员和分区key算一个hash，最大的成员拥有该分区。
+     * 成员增减时只有落在该成员上的分区换节点，所有节点看到相同的成员列表时算出的归属一致
+     *
+     * @return 没有成员时返回null
+     */
+    public String owner(String partitionKey) {
+        String owner = null;
+        long max = Long.MIN_VALUE;
+        for (String member : members) {
+            long weight = HASH.hashString(partitionKey + "#" + member, StandardCharsets.UTF_8).asLong();
+            if (owner == null || weight > max) {
+                max = weight;
+                owner = member;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 分区是否归本节点
+     */
+    public boolean owns(String partitionKey) {
+        String node = myNode;
+        return node != null && node.equals(owner(partitionKey));
+    }
+
+    /**
+     * 本节点是否已经在成员列表中
+     */
+    public boolean isMember() {
+        String node = myNode;
+        return node != null && members.contains(node);
+    }
+
+    /**
+     * 重新读取成员，成员或者leader变化时通知监听器
+     */
+    public synchronized void refresh() {
+        List<String> children;
+        try {
+            children = new ArrayList<>(zkClient.getChild(NODES_PATH, false));
+            if (myNode != null && !children.contains(myNode)) {
+                //会话超时后临时节点已经被删除
+                register();
+                children = new ArrayList<>(zkClient.getChild(NODES_PATH, false));
+            }
+        } catch (Exception e) {
+            logger.error("读取调度节点失败", e);
+            return;
+        }
+        Collections.sort(children, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return sequence(o1).compareTo(sequence(o2));
+            }
+        });
+        boolean nowLeader = !children.isEmpty() && children.get(0).equals(myNode);
+        if (children.equals(members) && nowLeader == leader) {
+            return;
+        }
+        members = Collections.unmodifiableList(children);
+        if (nowLeader != leader) {
+            logger.info(">>>>>>>>>>> scheduler leader change, node:{}, leader:{}", myNode, nowLeader);
+        }
+        leader = nowLeader;
+        logger.info(">>>>>>>>>>> scheduler members change, node:{}, members:{}", myNode, members);
+        notifyListeners();
+    }
+
+    /**
+     * 和zookeeper断开，放弃leader并清空成员，直到重新连上后 refresh
+     */
+    synchronized void lost() {
+        if (!leader && members.isEmpty()) {
+            return;
+        }
+        leader = false;
+        members = Collections.emptyList();
+        logger.warn(">>>>>>>>>>> scheduler lost zookeeper connection, node:{}, standby until reconnect", myNode);
+        notifyListeners();
+    }
+
+    private void notifyListeners() {
+        for (ClusterListener listener : listeners) {
+            try {
+                listener.onChange(this);
+            } catch (Exception e) {
+                logger.error("调度节点变化处理失败", e);
+            }
+        }
+    }
+
+    private void register() throws ZkClientException {
+        String data = IpUtils.getIpAddress() + "@" + ManagementFactory.getRuntimeMXBean().getName();
+        String path = zkClient.create(NODES_PATH + "/" + NODE_PREFIX, data.getBytes(StandardCharsets.UTF_8), CreateMode.EPHEMERAL_SEQUENTIAL);
+        myNode = path.substring(path.lastIndexOf("/") + 1);
+        logger.info(">>>>>>>>>>> scheduler node register, node:{}, data:{}", myNode, data);
+    }
+
+    private void ensurePath(String path) {
+        if (zkClient.exists(path)) {
+            return;
+        }
+        try {
+            zkClient.create(path, CreateMode.PERSISTENT);
+        } catch (ZkClientException e) {
+            //其他节点同时创建
+            if (!zkClient.exists(path)) {
+                throw e;
+            }
+        }
+    }
+
+    private static String sequence(String node) {
+        return node.substring(node.lastIndexOf("-") + 1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.civism.job.constants;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午9:40
+ * 广播、分片调用整体成功的判断方式
+ */
+public enum FanOutPolicy {
+    ALL("全部机器成功"),
+    QUORUM("超过半数机器成功"),
+    ANY("任意一台机器成功");
+
+    private String desc;
+
+    FanOutPolicy(String desc) {
+        this.desc = desc;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    /**
+     * 整体成功需要的成功数
+     *
+     * @param total 调用的机器数
+     */
+    public int required(int total) {
+        switch (this) {
+            case ANY:
+                return Math.min(1, total);
+            case QUORUM:
+                return total / 2 + 1;
+            case ALL:
+            default:
+                return total;
+        }
+    }
+
+    public static FanOutPolicy of(String name) {
+        if (name != null) {
+            for (FanOutPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name)) {
+                    return policy;
+                }
+            }
+        }
+        return ALL;
+    }
+}
@@ -8,7 +8,8 @@ public enum JobRecordStatus {
     RECORD_LOADING(0, "调用中"),
     RECORD_SUCCESS(1, "成功"),
     RECORD_FAIL(2, "失败"),
-    RECORD_NO_CHANEL(3, "没有发现通信通道");
+    RECORD_NO_CHANEL(3, "没有发现通信通道"),
+    RECORD_REJECTED(4, "执行端繁忙拒绝");
     private Integer status;
     private String desc;
 
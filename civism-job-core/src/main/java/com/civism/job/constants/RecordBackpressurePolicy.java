@@ -0,0 +1,22 @@
+package com.civism.job.constants;
+
+/**
+ * @author star
+ * @date 2026/10/18 上午10:05
+ * 调用记录写缓冲区满时的处理策略
+ */
+public enum RecordBackpressurePolicy {
+    BLOCK("阻塞等待缓冲区空闲"),
+    CALLER_RUNS("由调用线程直接刷盘"),
+    DISCARD("丢弃该条记录");
+
+    private String desc;
+
+    RecordBackpressurePolicy(String desc) {
+        this.desc = desc;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+}
@@ -1,6 +1,7 @@
 package com.civism.job.listener;
 
 
+import com.civism.job.route.ConsistentHashRouter;
 import com.civism.utils.IpLoadRouteUtils;
 import com.civism.zookeeper.ZkClientException;
 import com.civism.zookeeper.listener.Listener;
@@ -9,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Resource;
 import java.net.SocketException;
 
 /**
@@ -20,6 +22,9 @@ public class ZkChildIpListener implements Listener {
 
     private static final Logger logger = LoggerFactory.getLogger(ZkChildIpListener.class);
 
+    @Resource
+    private ConsistentHashRouter consistentHashRouter;
+
     @Override
     public void listen(String path, Watcher.Event.EventType eventType, byte[] data) throws ZkClientException, SocketException {
         String realPath = path.substring(path.lastIndexOf("/") + 1, path.length());
@@ -28,9 +33,11 @@ public class ZkChildIpListener implements Listener {
         switch (eventType) {
             case NodeCreated:
                 IpLoadRouteUtils.put(suffixPath, realPath);
+                consistentHashRouter.add(suffixPath, realPath);
                 break;
             case NodeDeleted:
                 IpLoadRouteUtils.remove(suffixPath, realPath);
+                consistentHashRouter.remove(suffixPath, realPath);
                 break;
             case NodeChildrenChanged:
                 logger.warn("该状态没有处理，请排查");
@@ -33,6 +33,8 @@ public class MessageSendObserver implements Observer {
                 break;
             case RECORD_NO_CHANEL:
                 break;
+            case RECORD_REJECTED:
+                break;
             default:
                 break;
         }
@@ -14,6 +14,11 @@ public class CivismJobDetail {
 
     private JobDataMap dataMap;
 
+    /**
+     * 临时任务，不落库，只由leader节点在内存中调度，适合高频的秒级任务
+     */
+    private boolean ephemeral;
+
     public String getGroupName() {
         return groupName;
     }
@@ -45,4 +50,12 @@ public class CivismJobDetail {
     public void setDataMap(JobDataMap dataMap) {
         this.dataMap = dataMap;
     }
+
+    public boolean isEphemeral() {
+        return ephemeral;
+    }
+
+    public void setEphemeral(boolean ephemeral) {
+        this.ephemeral = ephemeral;
+    }
 }
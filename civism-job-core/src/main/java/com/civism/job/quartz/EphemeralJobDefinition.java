@@ -0,0 +1,68 @@
+package com.civism.job.quartz;
+
+import org.quartz.JobDataMap;
+
+import java.io.Serializable;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午11:20
+ * 临时任务定义，序列化后存放在zookeeper，leader切换后由新leader重新加载
+ */
+public class EphemeralJobDefinition implements Serializable {
+
+    private static final long serialVersionUID = 4526137719027604281L;
+
+    private String groupName;
+
+    private String taskName;
+
+    private String cron;
+
+    /**
+     * 是否暂停
+     */
+    private boolean paused;
+
+    private JobDataMap dataMap;
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public void setGroupName(String groupName) {
+        this.groupName = groupName;
+    }
+
+    public String getTaskName() {
+        return taskName;
+    }
+
+    public void setTaskName(String taskName) {
+        this.taskName = taskName;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(String cron) {
+        this.cron = cron;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public JobDataMap getDataMap() {
+        return dataMap;
+    }
+
+    public void setDataMap(JobDataMap dataMap) {
+        this.dataMap = dataMap;
+    }
+}
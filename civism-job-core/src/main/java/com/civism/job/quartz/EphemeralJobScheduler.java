@@ -0,0 +1,685 @@
+package com.civism.job.quartz;
+
+import com.civism.constants.CivismConstants;
+import com.civism.job.cluster.ClusterListener;
+import com.civism.job.cluster.SchedulerCluster;
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.CivismJobCodec;
+import com.civism.job.route.HandlerManager;
+import com.civism.zookeeper.ZkClient;
+import com.civism.zookeeper.ZkClientException;
+import com.civism.zookeeper.listener.Listener;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Watcher;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午11:30
+ * 临时任务调度，高频的秒级任务不走数据库
+ * <p>
+ * 任务定义存放在zookeeper的 /guava_scheduler/ephemeral/{桶}/{分组@任务名} 下，只有leader节点把任务加载到本地的 RAMJobStore 调度器执行；
+ * leader切换后由新leader重新加载；单个任务定义的增删改只处理监听收到的那个节点，内容没变的不重新调度，
+ * 只有leader或者分区成员变化时才全量对齐。
+ * 触发不加数据库行锁，也不写 qrtz_fired_triggers；代价是leader切换期间的触发会丢失。
+ * 和zookeeper断开或者会话超时时 SchedulerCluster 立即放弃leader和成员，本地停止调度，重新连上后再全量对齐
+ * <p>
+ * mode 为 PARTITIONED 时不选leader，按任务分组或者任务key把任务分到所有存活的调度节点，每个节点只调度归自己的任务，
+ * 节点增减时各节点按新的成员列表重新对齐，只有归属变化的任务换节点；增加调度节点增加的是调度能力而不是锁竞争
+ * <p>
+ * 归属变化时节点之间没有交接：每次触发前按本节点当前看到的成员列表再检查一次归属，
+ * 本节点刷新成员后旧的归属立即停止触发，不用等重新对齐删除任务。各节点收到成员变化通知有先后，
+ * 在这段时间内旧节点还没刷新时新旧节点可能重复触发，新节点先于旧节点收到通知之前的触发可能丢失，
+ * 时长为zookeeper通知的延迟加上新节点的重新对齐，任务需要能容忍这段时间的重复或者缺失
+ * <p>
+ * engine 为 QUARTZ 时本地用 RAMJobStore 的quartz调度器触发；WHEEL 时用分层时间轮触发，适合数量很大的秒级任务
+ * <p>
+ * 任务定义按节点名hash分到 {@link #BUCKETS} 个桶，每个桶单独监听，避免一个节点下子节点过多时
+ * getChildren 的响应超过 jute.maxbuffer(默认1MB)；节点名不超过200字节时支持约100万个任务定义。
+ * 旧版本直接存放在 /guava_scheduler/ephemeral 下的任务定义启动时移到对应的桶中
+ */
+public class EphemeralJobScheduler implements ClusterListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EphemeralJobScheduler.class);
+
+    public static final String DEFINITION_PATH = CivismConstants.ZK_SCHEDULER + "/ephemeral";
+
+    public static final String MODE_LEADER = "LEADER";
+
+    public static final String MODE_PARTITIONED = "PARTITIONED";
+
+    public static final String PARTITION_BY_GROUP = "GROUP";
+
+    public static final String PARTITION_BY_JOB = "JOB";
+
+    public static final String ENGINE_QUARTZ = "QUARTZ";
+
+    public static final String ENGINE_WHEEL = "WHEEL";
+
+    /**
+     * 任务定义的桶数，修改后已有的任务定义找不到，不能修改
+     */
+    private static final int BUCKETS = 256;
+
+    private static final HashFunction BUCKET_HASH = Hashing.murmur3_32();
+
+    @Resource
+    private ZkClient zkClient;
+
+    @Resource
+    private SchedulerCluster schedulerCluster;
+
+    @Resource
+    private HandlerManager handlerManager;
+
+    /**
+     * 数据库中的调度器，同名任务只能存在于其中一处
+     */
+    @Resource
+    private Scheduler combCenterSchedulerBean;
+
+    /**
+     * 本地调度器线程数
+     */
+    private int threadCount = 10;
+
+    /**
+     * LEADER 只由leader调度全部任务；PARTITIONED 所有节点按分区各自调度
+     */
+    private String mode = MODE_LEADER;
+
+    /**
+     * 分区方式 GROUP 同一分组的任务在同一节点；JOB 按任务key打散
+     */
+    private String partitionBy = PARTITION_BY_GROUP;
+
+    /**
+     * 本地触发引擎 QUARTZ / WHEEL
+     */
+    private String engine = ENGINE_QUARTZ;
+
+    /**
+     * 时间轮每格的时间，毫秒
+     */
+    private long tickMillis = 100;
+
+    private LocalTriggerEngine triggerEngine;
+
+    /**
+     * 本节点是否正在调度
+     */
+    private volatile boolean active = false;
+
+    /**
+     * 已经调度的任务和对应的任务定义内容版本号
+     */
+    private final Map<JobKey, Long> appliedVersions = new HashMap<>();
+
+    /**
+     * 全量对齐在单独的线程上执行，不占用zookeeper监听回调的线程
+     */
+    private final ExecutorService reconcileExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "civism-ephemeral-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * 已经提交还没开始执行的对齐，执行前的多次请求合并为一次
+     */
+    private final AtomicBoolean reconcilePending = new AtomicBoolean(false);
+
+    /**
+     * 对齐期间监听已经处理过的任务，对齐读到的内容可能比监听收到的旧，不再覆盖；不在对齐中时为null
+     */
+    private Set<JobKey> touched;
+
+    public void start() {
+        try {
+            if (ENGINE_WHEEL.equalsIgnoreCase(engine)) {
+                triggerEngine = new TimingWheelTriggerEngine(tickMillis, threadCount);
+            } else {
+                triggerEngine = new RamTriggerEngine(threadCount);
+            }
+            triggerEngine.setFireGuard(new LocalTriggerEngine.FireGuard() {
+                @Override
+                public boolean allow(JobKey jobKey) {
+                    return shouldFire(jobKey);
+                }
+            });
+            ensurePath(DEFINITION_PATH);
+            for (int i = 0; i < BUCKETS; i++) {
+                ensurePath(bucketPath(i));
+            }
+            migrate();
+            Listener listener = new Listener() {
+                @Override
+                public void listen(String path, Watcher.Event.EventType eventType, byte[] data) {
+                    apply(path, eventType, data);
+                }
+            };
+            for (int i = 0; i < BUCKETS; i++) {
+                zkClient.listenChildData(bucketPath(i), listener);
+            }
+            schedulerCluster.addListener(this);
+            logger.info(">>>>>>>>>>> ephemeral job scheduler start, engine:{}, threadCount:{}", engine, threadCount);
+        } catch (Exception e) {
+            logger.error("临时任务调度器启动失败", e);
+        }
+    }
+
+    public synchronized void destroy() {
+        active = false;
+        reconcileExecutor.shutdownNow();
+        try {
+            if (triggerEngine != null) {
+                triggerEngine.shutdown();
+            }
+        } catch (SchedulerException e) {
+            logger.error("临时任务调度器关闭失败", e);
+        }
+    }
+
+    @Override
+    public synchronized void onChange(SchedulerCluster cluster) {
+        boolean shouldRun = isPartitioned() ? cluster.isMember() : cluster.isLeader();
+        try {
+            if (shouldRun && !active) {
+                active = true;
+                triggerEngine.start();
+                logger.info(">>>>>>>>>>> ephemeral job scheduler active, node:{}, mode:{}", cluster.getMyNode(), mode);
+            } else if (!shouldRun && active) {
+                active = false;
+                triggerEngine.standby();
+                appliedVersions.clear();
+                logger.info(">>>>>>>>>>> ephemeral job scheduler standby, node:{}, mode:{}", cluster.getMyNode(), mode);
+            }
+        } catch (SchedulerException e) {
+            logger.error("临时任务调度器切换失败", e);
+        }
+        //成员变化后分区归属可能变化，重新对齐
+        requestReconcile();
+    }
+
+    /**
+     * 提交一次全量对齐，已有等待执行的对齐时不重复提交
+     */
+    void requestReconcile() {
+        if (!reconcilePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            reconcileExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    reconcilePending.set(false);
+                    reconcile();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //已经关闭
+            reconcilePending.set(false);
+        }
+    }
+
+    /**
+     * 新增临时任务
+     *
+     * @return 任务已存在时返回false
+     */
+    public boolean add(CivismJobDetail jobDetail) {
+        return add(jobDetail, false);
+    }
+
+    /**
+     * 新增临时任务
+     *
+     * @param replace 任务已存在时是否替换，替换时保留暂停状态
+     * @return 任务已存在并且不替换、或者数据库中已有同名任务时返回false
+     */
+    public boolean add(CivismJobDetail jobDetail, boolean replace) {
+        if (existsInStore(jobDetail.getGroupName(), jobDetail.getTaskName())) {
+            logger.info(">>>>>>>>> add ephemeral job fail, job already exist in jdbc store, jobGroup:{}, jobName:{}", jobDetail.getGroupName(), jobDetail.getTaskName());
+            return false;
+        }
+        EphemeralJobDefinition old = get(jobDetail.getGroupName(), jobDetail.getTaskName());
+        if (old != null && !replace) {
+            return false;
+        }
+        EphemeralJobDefinition definition = new EphemeralJobDefinition();
+        definition.setGroupName(jobDetail.getGroupName());
+        definition.setTaskName(jobDetail.getTaskName());
+        definition.setCron(jobDetail.getCron());
+        definition.setDataMap(CivismJobCodec.compact(jobDetail.getDataMap()));
+        if (old != null) {
+            definition.setPaused(old.isPaused());
+            zkClient.setData(path(definition.getGroupName(), definition.getTaskName()), serialize(definition));
+            logger.info(">>>>>>>>>>> replace ephemeral job success, jobGroup:{}, jobName:{}, cron:{}", definition.getGroupName(), definition.getTaskName(), definition.getCron());
+            return true;
+        }
+        try {
+            zkClient.create(path(definition.getGroupName(), definition.getTaskName()), serialize(definition), CreateMode.PERSISTENT);
+        } catch (ZkClientException e) {
+            logger.warn(">>>>>>>>> add ephemeral job fail, jobGroup:{}, jobName:{}", definition.getGroupName(), definition.getTaskName(), e);
+            return false;
+        }
+        logger.info(">>>>>>>>>>> add ephemeral job success, jobGroup:{}, jobName:{}, cron:{}", definition.getGroupName(), definition.getTaskName(), definition.getCron());
+        return true;
+    }
+
+    public boolean remove(String groupName, String taskName) {
+        if (!exists(groupName, taskName)) {
+            return false;
+        }
+        zkClient.delete(path(groupName, taskName));
+        return true;
+    }
+
+    public boolean exists(String groupName, String taskName) {
+        return zkClient.exists(path(groupName, taskName));
+    }
+
+    /**
+     * 数据库中是否已有同名任务，查询失败时按已存在处理，避免同一个任务同时存在于两处
+     */
+    private boolean existsInStore(String groupName, String taskName) {
+        try {
+            return combCenterSchedulerBean.checkExists(JobKey.jobKey(taskName, groupName));
+        } catch (SchedulerException e) {
+            logger.error("查询数据库任务失败>>>>>>>jobGroup={}, jobName={}", groupName, taskName, e);
+            return true;
+        }
+    }
+
+    public boolean reschedule(String groupName, String taskName, String cron) {
+        EphemeralJobDefinition definition = get(groupName, taskName);
+        if (definition == null) {
+            return false;
+        }
+        if (!cron.equals(definition.getCron())) {
+            definition.setCron(cron);
+            zkClient.setData(path(groupName, taskName), serialize(definition));
+        }
+        return true;
+    }
+
+    public boolean setPaused(String groupName, String taskName, boolean paused) {
+        EphemeralJobDefinition definition = get(groupName, taskName);
+        if (definition == null) {
+            return false;
+        }
+        if (definition.isPaused() != paused) {
+            definition.setPaused(paused);
+            zkClient.setData(path(groupName, taskName), serialize(definition));
+        }
+        return true;
+    }
+
+    /**
+     * 分组下的所有临时任务名
+     */
+    public List<String> taskNames(String groupName) {
+        List<String> taskNames = new ArrayList<>();
+        try {
+            String prefix = URLEncoder.encode(groupName, "UTF-8") + "@";
+            for (int i = 0; i < BUCKETS; i++) {
+                for (String child : zkClient.getChild(bucketPath(i), false)) {
+                    if (child.startsWith(prefix)) {
+                        taskNames.add(URLDecoder.decode(child.substring(prefix.length()), "UTF-8"));
+                    }
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return taskNames;
+    }
+
+    public EphemeralJobDefinition get(String groupName, String taskName) {
+        String path = path(groupName, taskName);
+        if (!zkClient.exists(path)) {
+            return null;
+        }
+        return deserialize(zkClient.getData(path));
+    }
+
+    /**
+     * 把zookeeper里归本节点的任务定义和本地调度器全量对齐，leader或者分区成员变化时在对齐线程上调用
+     * <p>
+     * 所有桶的子节点列表一起异步读取，每个桶里归本节点的任务定义也一起异步读取，读取时不持有锁，
+     * 一个桶读完后再加锁应用；先按节点名判断归属，只读取归本节点的任务定义；
+     * 读取失败的任务保持原来的调度，等下次变化时再处理；对齐期间监听已经处理过的任务以监听为准
+     */
+    public void reconcile() {
+        synchronized (this) {
+            if (!active) {
+                return;
+            }
+            touched = new HashSet<>();
+        }
+        try {
+            List<CompletableFuture<List<String>>> buckets = new ArrayList<>(BUCKETS);
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.add(zkClient.getChildAsync(bucketPath(i), false));
+            }
+            Set<JobKey> desired = new HashSet<>();
+            List<Integer> unreadBuckets = new ArrayList<>();
+            for (int i = 0; i < BUCKETS; i++) {
+                String bucketPath = bucketPath(i);
+                List<String> children;
+                try {
+                    children = buckets.get(i).get();
+                } catch (ExecutionException e) {
+                    //读不到的桶里的任务保持原来的调度
+                    logger.error("读取临时任务失败>>>>>>>bucket={}", bucketPath, e.getCause());
+                    unreadBuckets.add(i);
+                    continue;
+                }
+                Map<JobKey, CompletableFuture<byte[]>> reads = new LinkedHashMap<>();
+                for (String child : children) {
+                    JobKey jobKey = jobKey(child);
+                    if (jobKey == null || !owns(jobKey)) {
+                        continue;
+                    }
+                    desired.add(jobKey);
+                    reads.put(jobKey, zkClient.getDataAsync(bucketPath + "/" + child, false));
+                }
+                Map<JobKey, byte[]> loaded = new LinkedHashMap<>(reads.size());
+                for (Map.Entry<JobKey, CompletableFuture<byte[]>> entry : reads.entrySet()) {
+                    try {
+                        loaded.put(entry.getKey(), entry.getValue().get());
+                    } catch (ExecutionException e) {
+                        //节点刚被删除时由删除事件处理，读取失败时保持原来的调度
+                        logger.error("加载临时任务失败>>>>>>>job={}", entry.getKey(), e.getCause());
+                    }
+                }
+                applyLoaded(loaded);
+            }
+            removeUndesired(desired, unreadBuckets);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                touched = null;
+            }
+        }
+    }
+
+    private synchronized void applyLoaded(Map<JobKey, byte[]> loaded) {
+        if (!active) {
+            return;
+        }
+        for (Map.Entry<JobKey, byte[]> entry : loaded.entrySet()) {
+            if (touched != null && touched.contains(entry.getKey())) {
+                continue;
+            }
+            try {
+                apply(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                //定义无法解析时保持原来的调度
+                logger.error("加载临时任务失败>>>>>>>job={}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private synchronized void removeUndesired(Set<JobKey> desired, List<Integer> unreadBuckets) {
+        if (!active) {
+            return;
+        }
+        for (int bucket : unreadBuckets) {
+            keepBucket(bucket, desired);
+        }
+        for (JobKey jobKey : new HashSet<>(appliedVersions.keySet())) {
+            if (!desired.contains(jobKey) && (touched == null || !touched.contains(jobKey))) {
+                unapply(jobKey);
+            }
+        }
+    }
+
+    /**
+     * 应用监听收到的单个任务定义变化
+     *
+     * @param path 任务定义节点
+     * @param data 节点删除时忽略
+     */
+    synchronized void apply(String path, Watcher.Event.EventType eventType, byte[] data) {
+        if (!active) {
+            return;
+        }
+        JobKey jobKey = jobKey(path.substring(path.lastIndexOf('/') + 1));
+        if (jobKey == null) {
+            return;
+        }
+        if (touched != null) {
+            touched.add(jobKey);
+        }
+        if (eventType == Watcher.Event.EventType.NodeDeleted || !owns(jobKey)) {
+            if (appliedVersions.containsKey(jobKey)) {
+                unapply(jobKey);
+            }
+            return;
+        }
+        try {
+            apply(jobKey, data);
+        } catch (Exception e) {
+            logger.error("加载临时任务失败>>>>>>>node={}", path, e);
+        }
+    }
+
+    /**
+     * 内容有变化时重新调度
+     */
+    private void apply(JobKey jobKey, byte[] data) throws SchedulerException {
+        long version = CivismJobCodec.version(data);
+        Long applied = appliedVersions.get(jobKey);
+        if (applied != null && applied == version) {
+            return;
+        }
+        schedule(jobKey, deserialize(data));
+        appliedVersions.put(jobKey, version);
+    }
+
+    /**
+     * 桶读取失败时，桶里已经调度并且仍然归本节点的任务不删除
+     */
+    private void keepBucket(int bucket, Set<JobKey> desired) {
+        for (JobKey jobKey : appliedVersions.keySet()) {
+            if (bucket(child(jobKey.getGroup(), jobKey.getName())) == bucket && owns(jobKey)) {
+                desired.add(jobKey);
+            }
+        }
+    }
+
+    private void unapply(JobKey jobKey) {
+        try {
+            triggerEngine.unschedule(jobKey);
+            handlerManager.invalidate(jobKey);
+            appliedVersions.remove(jobKey);
+            logger.info(">>>>>>>>>>> remove ephemeral job, job:{}", jobKey);
+        } catch (SchedulerException e) {
+            logger.error("删除临时任务失败>>>>>>>job={}", jobKey, e);
+        }
+    }
+
+    private boolean isPartitioned() {
+        return MODE_PARTITIONED.equalsIgnoreCase(mode);
+    }
+
+    /**
+     * 触发前按当前的leader和成员列表检查，不加锁
+     */
+    private boolean shouldFire(JobKey jobKey) {
+        if (!active) {
+            return false;
+        }
+        if (!isPartitioned()) {
+            return schedulerCluster.isLeader();
+        }
+        return owns(jobKey);
+    }
+
+    private boolean owns(JobKey jobKey) {
+        if (!isPartitioned()) {
+            return true;
+        }
+        String partitionKey = PARTITION_BY_JOB.equalsIgnoreCase(partitionBy) ? jobKey.toString() : jobKey.getGroup();
+        return schedulerCluster.owns(partitionKey);
+    }
+
+    private void schedule(JobKey jobKey, EphemeralJobDefinition definition) throws SchedulerException {
+        triggerEngine.schedule(jobKey, definition.getCron(), definition.getDataMap(), definition.isPaused());
+        CivismJob job = CivismJobCodec.read(definition.getDataMap());
+        if (job != null) {
+            handlerManager.compile(jobKey, job);
+        }
+        logger.info(">>>>>>>>>>> schedule ephemeral job, job:{}, cron:{}, paused:{}", jobKey, definition.getCron(), definition.isPaused());
+    }
+
+    /**
+     * 从节点名 group@task 还原任务key，分组和任务名都经过url编码，不会含有@
+     *
+     * @return 不是任务定义节点时返回null
+     */
+    private static JobKey jobKey(String child) {
+        int at = child.indexOf('@');
+        if (at <= 0) {
+            return null;
+        }
+        try {
+            return JobKey.jobKey(URLDecoder.decode(child.substring(at + 1), "UTF-8"), URLDecoder.decode(child.substring(0, at), "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 把旧版本直接存放在 DEFINITION_PATH 下的任务定义移到桶中，多个节点同时启动时重复移动不影响结果
+     */
+    private void migrate() {
+        for (String child : zkClient.getChild(DEFINITION_PATH, false)) {
+            if (jobKey(child) == null) {
+                continue;
+            }
+            String legacy = DEFINITION_PATH + "/" + child;
+            String target = bucketPath(bucket(child)) + "/" + child;
+            try {
+                byte[] data = zkClient.getData(legacy);
+                if (!zkClient.exists(target)) {
+                    zkClient.create(target, data, CreateMode.PERSISTENT);
+                }
+                zkClient.delete(legacy);
+                logger.info(">>>>>>>>>>> migrate ephemeral job, node:{}", target);
+            } catch (Exception e) {
+                logger.warn("移动临时任务失败>>>>>>>node={}", legacy, e);
+            }
+        }
+    }
+
+    private void ensurePath(String path) {
+        if (zkClient.exists(path)) {
+            return;
+        }
+        try {
+            zkClient.create(path, CreateMode.PERSISTENT);
+        } catch (ZkClientException e) {
+            //其他节点同时创建
+            if (!zkClient.exists(path)) {
+                throw e;
+            }
+        }
+    }
+
+    private static String path(String groupName, String taskName) {
+        String child = child(groupName, taskName);
+        return bucketPath(bucket(child)) + "/" + child;
+    }
+
+    private static String child(String groupName, String taskName) {
+        try {
+            return URLEncoder.encode(groupName, "UTF-8") + "@" + URLEncoder.encode(taskName, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int bucket(String child) {
+        return (BUCKET_HASH.hashString(child, StandardCharsets.UTF_8).asInt() & Integer.MAX_VALUE) % BUCKETS;
+    }
+
+    private static String bucketPath(int bucket) {
+        return DEFINITION_PATH + "/" + String.format("%02x", bucket);
+    }
+
+    private static byte[] serialize(EphemeralJobDefinition definition) {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(definition);
+            oos.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("serialize ephemeral job fail, job:" + definition.getGroupName() + "." + definition.getTaskName(), e);
+        }
+    }
+
+    private static EphemeralJobDefinition deserialize(byte[] data) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (EphemeralJobDefinition) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalArgumentException("deserialize ephemeral job fail", e);
+        }
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
+    public void setTickMillis(long tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public void setPartitionBy(String partitionBy) {
+        this.partitionBy = partitionBy;
+    }
+}
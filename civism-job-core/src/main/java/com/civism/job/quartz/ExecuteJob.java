@@ -1,7 +1,6 @@
 package com.civism.job.quartz;
 
 
-import com.civism.constants.CivismConstants;
 import com.civism.job.route.CivismJob;
 import com.civism.job.schedule.GuavaJobApplication;
 import org.quartz.*;
@@ -17,8 +16,10 @@ public class ExecuteJob implements Job {
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
         System.out.println("调用了");
         JobDataMap jobDataMap = jobExecutionContext.getJobDetail().getJobDataMap();
-        CivismJob ruhnnJob = (CivismJob) jobDataMap.get(CivismConstants.JOB_DETAIL);
-        //处理任务链
-        GuavaJobApplication.handlerManager.handler(ruhnnJob);
+        JobKey jobKey = jobExecutionContext.getJobDetail().getKey();
+        //编码的任务定义按版本号缓存，定义没变时不再解码
+        CivismJob ruhnnJob = GuavaJobApplication.jobDefinitionCache.get(jobKey, jobDataMap);
+        //处理任务链，复用该任务编译好的路由链，按配置在quartz线程或者调度执行器上执行
+        GuavaJobApplication.jobDispatchExecutor.dispatch(jobKey, ruhnnJob);
     }
 }
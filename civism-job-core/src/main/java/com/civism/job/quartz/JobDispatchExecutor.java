@@ -0,0 +1,174 @@
+package com.civism.job.quartz;
+
+import com.civism.job.route.CivismJob;
+import com.civism.job.schedule.GuavaJobApplication;
+import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午10:40
+ * 任务路由和调用的执行方式
+ * <p>
+ * INLINE 在quartz线程上执行，和原来一样；ASYNC 交给独立的执行器，quartz线程马上返回，
+ * SYNC调用阻塞的是执行器的线程，不再占满quartz线程池。JDK21及以上每个任务一个虚拟线程，低版本退回普通线程池
+ * <p>
+ * 执行中的调度数超过 maxInFlight 时在quartz线程上执行，由quartz线程池限流；
+ * 同一个任务上次调度还没结束时跳过本次，保持 DisallowConcurrentExecution 的语义
+ */
+public class JobDispatchExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobDispatchExecutor.class);
+
+    public static final String MODE_INLINE = "INLINE";
+
+    public static final String MODE_ASYNC = "ASYNC";
+
+    /**
+     * INLINE / ASYNC
+     */
+    private String mode = MODE_INLINE;
+
+    /**
+     * 同时执行中的调度上限
+     */
+    private int maxInFlight = 1000;
+
+    /**
+     * 关闭时等待执行中调度结束的时间，毫秒
+     */
+    private long shutdownTimeout = 10000;
+
+    private ExecutorService executor;
+
+    private Semaphore inFlight;
+
+    private final Set<JobKey> running = ConcurrentHashMap.newKeySet();
+
+    public void start() {
+        if (!MODE_ASYNC.equalsIgnoreCase(mode)) {
+            return;
+        }
+        inFlight = new Semaphore(maxInFlight);
+        executor = newVirtualThreadExecutor();
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setDaemon(true);
+                    thread.setName("civism-dispatch-" + count.incrementAndGet());
+                    return thread;
+                }
+            });
+            logger.info(">>>>>>>>>>> job dispatch executor start, virtual thread not available, use thread pool, maxInFlight:{}", maxInFlight);
+        } else {
+            logger.info(">>>>>>>>>>> job dispatch executor start, virtual thread per task, maxInFlight:{}", maxInFlight);
+        }
+    }
+
+    public void destroy() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(shutdownTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 执行一次调度
+     *
+     * @param jobKey   任务key
+     * @param civismJob 任务定义
+     */
+    public void dispatch(final JobKey jobKey, CivismJob civismJob) {
+        if (executor == null) {
+            GuavaJobApplication.handlerManager.handler(jobKey, civismJob);
+            return;
+        }
+        if (!running.add(jobKey)) {
+            logger.warn("任务上次调度还未结束，跳过本次>>>>>>>job={}", jobKey);
+            return;
+        }
+        if (!inFlight.tryAcquire()) {
+            //执行中的调度已满，在quartz线程上执行
+            try {
+                GuavaJobApplication.handlerManager.handler(jobKey, civismJob);
+            } finally {
+                running.remove(jobKey);
+            }
+            return;
+        }
+        //JobDataMap里的对象执行结束后会被quartz持久化，异步执行时用副本
+        final CivismJob job = civismJob.copy();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        GuavaJobApplication.handlerManager.handler(jobKey, job);
+                    } catch (Throwable t) {
+                        logger.error("任务调度异常>>>>>>>job={}", jobKey, t);
+                    } finally {
+                        running.remove(jobKey);
+                        inFlight.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(jobKey);
+            inFlight.release();
+            logger.warn("调度执行器已关闭，在quartz线程上执行>>>>>>>job={}", jobKey);
+            GuavaJobApplication.handlerManager.handler(jobKey, civismJob);
+        }
+    }
+
+    /**
+     * 执行中的调度数
+     */
+    public int inFlight() {
+        return inFlight == null ? 0 : maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * 编译目标是JDK8，通过反射使用JDK21的 Executors.newVirtualThreadPerTaskExecutor
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+}
@@ -0,0 +1,52 @@
+package com.civism.job.quartz;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+
+/**
+ * @author star
+ * @date 2026/10/19 上午10:10
+ * 临时任务的本地触发引擎，任务定义由 EphemeralJobScheduler 从zookeeper对齐过来
+ */
+public interface LocalTriggerEngine {
+
+    /**
+     * 开始触发
+     */
+    void start() throws SchedulerException;
+
+    /**
+     * 停止触发并清空所有任务
+     */
+    void standby() throws SchedulerException;
+
+    /**
+     * 新增或者替换任务
+     *
+     * @param jobKey  任务key
+     * @param cron    cron表达式
+     * @param dataMap 任务数据，CivismJob 编码后的或者java序列化的
+     * @param paused  是否暂停，暂停的任务不触发
+     */
+    void schedule(JobKey jobKey, String cron, JobDataMap dataMap, boolean paused) throws SchedulerException;
+
+    /**
+     * 删除任务
+     */
+    void unschedule(JobKey jobKey) throws SchedulerException;
+
+    void shutdown() throws SchedulerException;
+
+    /**
+     * 设置触发前的检查，不通过的触发直接丢弃
+     */
+    void setFireGuard(FireGuard fireGuard);
+
+    /**
+     * 触发前检查本节点是否还应该触发该任务，在触发线程中调用，不能阻塞
+     */
+    interface FireGuard {
+        boolean allow(JobKey jobKey);
+    }
+}
@@ -0,0 +1,98 @@
+package com.civism.job.quartz;
+
+import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.listeners.TriggerListenerSupport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Properties;
+
+/**
+ * @author star
+ * @date 2026/10/19 上午10:15
+ * 用 RAMJobStore 的quartz调度器触发，配置见 quartz-ram.properties
+ */
+public class RamTriggerEngine implements LocalTriggerEngine {
+
+    private final Scheduler scheduler;
+
+    private volatile FireGuard fireGuard;
+
+    public RamTriggerEngine(int threadCount) throws SchedulerException {
+        Properties properties = new Properties();
+        try (InputStream in = RamTriggerEngine.class.getClassLoader().getResourceAsStream("quartz-ram.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new SchedulerException("load quartz-ram.properties fail", e);
+        }
+        properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".threadCount", String.valueOf(threadCount));
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        scheduler.getListenerManager().addTriggerListener(new TriggerListenerSupport() {
+            @Override
+            public String getName() {
+                return "civismFireGuard";
+            }
+
+            @Override
+            public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+                FireGuard guard = fireGuard;
+                return guard != null && !guard.allow(trigger.getJobKey());
+            }
+        });
+    }
+
+    @Override
+    public void start() throws SchedulerException {
+        scheduler.start();
+    }
+
+    @Override
+    public void standby() throws SchedulerException {
+        scheduler.standby();
+        scheduler.clear();
+    }
+
+    @Override
+    public void schedule(JobKey jobKey, String cron, JobDataMap dataMap, boolean paused) throws SchedulerException {
+        TriggerKey triggerKey = TriggerKey.triggerKey(jobKey.getName(), jobKey.getGroup());
+        CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(cron).withMisfireHandlingInstructionDoNothing();
+        CronTrigger cronTrigger = TriggerBuilder.newTrigger().withIdentity(triggerKey).withSchedule(cronScheduleBuilder).build();
+        JobDetail jobDetail = JobBuilder.newJob(ExecuteJob.class).storeDurably(true).usingJobData(dataMap).withIdentity(jobKey).build();
+        scheduler.scheduleJob(jobDetail, Collections.<Trigger>singleton(cronTrigger), true);
+        if (paused) {
+            scheduler.pauseTrigger(triggerKey);
+        }
+    }
+
+    @Override
+    public void unschedule(JobKey jobKey) throws SchedulerException {
+        scheduler.deleteJob(jobKey);
+    }
+
+    @Override
+    public void setFireGuard(FireGuard fireGuard) {
+        this.fireGuard = fireGuard;
+    }
+
+    @Override
+    public void shutdown() throws SchedulerException {
+        if (!scheduler.isShutdown()) {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package com.civism.job.quartz;
 
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.CivismJobCodec;
+import com.civism.job.route.HandlerManager;
 import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author star
@@ -21,7 +32,16 @@ public class ScheduleFactory {
     @Resource
     private Scheduler combCenterSchedulerBean;
 
+    @Resource
+    private HandlerManager handlerManager;
+
+    @Resource
+    private EphemeralJobScheduler ephemeralJobScheduler;
+
     public boolean addJob(CivismJobDetail ruhnnJobDetail) throws SchedulerException {
+        if (ruhnnJobDetail.isEphemeral()) {
+            return ephemeralJobScheduler.add(ruhnnJobDetail);
+        }
         TriggerKey triggerKey = TriggerKey.triggerKey(ruhnnJobDetail.getTaskName(), ruhnnJobDetail.getGroupName());
         JobKey jobKey = new JobKey(ruhnnJobDetail.getTaskName(), ruhnnJobDetail.getGroupName());
         if (existJob(ruhnnJobDetail.getTaskName(), ruhnnJobDetail.getGroupName())) {
@@ -31,26 +51,30 @@ public class ScheduleFactory {
         CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(ruhnnJobDetail.getCron()).withMisfireHandlingInstructionDoNothing();
         CronTrigger cronTrigger = TriggerBuilder.newTrigger().withIdentity(triggerKey).withSchedule(cronScheduleBuilder).build();
 
-        JobDetail jobDetail = JobBuilder.newJob(ExecuteJob.class).storeDurably(true).usingJobData(ruhnnJobDetail.getDataMap()).withIdentity(jobKey).build();
+        JobDetail jobDetail = JobBuilder.newJob(ExecuteJob.class).storeDurably(true).usingJobData(CivismJobCodec.compact(ruhnnJobDetail.getDataMap())).withIdentity(jobKey).build();
         Date date = combCenterSchedulerBean.scheduleJob(jobDetail, cronTrigger);
+        precompile(jobKey, ruhnnJobDetail.getDataMap());
         logger.info(">>>>>>>>>>> addJob success, jobDetail:{}, cronTrigger:{}, date:{}", jobDetail, cronTrigger, date);
         return true;
     }
 
 
     public boolean deleteJob(String groupName, String taskName) throws SchedulerException {
-
+        if (ephemeralJobScheduler.exists(groupName, taskName)) {
+            return ephemeralJobScheduler.remove(groupName, taskName);
+        }
         TriggerKey tk = TriggerKey.triggerKey(taskName, groupName);
         combCenterSchedulerBean.pauseTrigger(tk);
         combCenterSchedulerBean.unscheduleJob(tk);
         JobKey jobKey = JobKey.jobKey(taskName, groupName);
         combCenterSchedulerBean.deleteJob(jobKey);
+        handlerManager.invalidate(jobKey);
         return true;
     }
 
     public boolean existJob(String groupName, String taskName) throws SchedulerException {
         TriggerKey tk = TriggerKey.triggerKey(taskName, groupName);
-        return combCenterSchedulerBean.checkExists(tk);
+        return combCenterSchedulerBean.checkExists(tk) || ephemeralJobScheduler.exists(groupName, taskName);
     }
 
     /**
@@ -62,6 +86,9 @@ public class ScheduleFactory {
      * @return
      */
     public boolean rescheduleJob(String groupName, String taskName, String cron) throws SchedulerException {
+        if (ephemeralJobScheduler.exists(groupName, taskName)) {
+            return ephemeralJobScheduler.reschedule(groupName, taskName, cron);
+        }
         if (!existJob(groupName, taskName)) {
             logger.info(">>>>>>>>>>> rescheduleJob fail, job not exists, JobGroup:{}, JobName:{}", groupName, taskName);
             return false;
@@ -98,6 +125,9 @@ public class ScheduleFactory {
      * @return
      */
     public boolean pauseJob(String groupName, String taskName) throws SchedulerException {
+        if (ephemeralJobScheduler.exists(groupName, taskName)) {
+            return ephemeralJobScheduler.setPaused(groupName, taskName, true);
+        }
         TriggerKey triggerKey = TriggerKey.triggerKey(taskName, groupName);
 
         if (existJob(groupName, taskName)) {
@@ -118,6 +148,9 @@ public class ScheduleFactory {
      * @return
      */
     public boolean resumeJob(String groupName, String taskName) throws SchedulerException {
+        if (ephemeralJobScheduler.exists(groupName, taskName)) {
+            return ephemeralJobScheduler.setPaused(groupName, taskName, false);
+        }
         TriggerKey triggerKey = TriggerKey.triggerKey(taskName, groupName);
         if (existJob(groupName, taskName)) {
             combCenterSchedulerBean.resumeTrigger(triggerKey);
@@ -129,6 +162,192 @@ public class ScheduleFactory {
         return false;
     }
 
+    /**
+     * 批量添加任务，校验通过的任务在一个事务中写入
+     *
+     * @param jobDetails 任务
+     * @param replace    任务已存在时是否替换
+     * @return 每个任务的结果，cron不合法、同一批次中重复、任务已存在并且不替换、已作为临时任务存在时为false
+     */
+    public Map<JobKey, Boolean> addJobs(Collection<CivismJobDetail> jobDetails, boolean replace) throws SchedulerException {
+        Map<JobKey, Boolean> result = new LinkedHashMap<>();
+        Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = new LinkedHashMap<>();
+        Map<String, Set<JobKey>> existing = new HashMap<>();
+        Set<JobKey> duplicated = duplicatedKeys(jobDetails);
+        for (CivismJobDetail ruhnnJobDetail : jobDetails) {
+            JobKey jobKey = new JobKey(ruhnnJobDetail.getTaskName(), ruhnnJobDetail.getGroupName());
+            if (duplicated.contains(jobKey)) {
+                //JobDetail按JobKey判等，同名任务放进triggersAndJobs会互相覆盖，无法确定以哪个为准，全部拒绝
+                logger.info(">>>>>>>>> addJobs fail, duplicated job in batch, jobGroup:{}, jobName:{}", jobKey.getGroup(), jobKey.getName());
+                result.put(jobKey, false);
+                continue;
+            }
+            if (ruhnnJobDetail.isEphemeral()) {
+                result.put(jobKey, ephemeralJobScheduler.add(ruhnnJobDetail, replace));
+                continue;
+            }
+            if (ephemeralJobScheduler.exists(jobKey.getGroup(), jobKey.getName())) {
+                logger.info(">>>>>>>>> addJobs fail, job already exist as ephemeral, jobGroup:{}, jobName:{}", jobKey.getGroup(), jobKey.getName());
+                result.put(jobKey, false);
+                continue;
+            }
+            if (!CronExpression.isValidExpression(ruhnnJobDetail.getCron())) {
+                logger.info(">>>>>>>>> addJobs fail, invalid cron, jobGroup:{}, jobName:{}, cron:{}", jobKey.getGroup(), jobKey.getName(), ruhnnJobDetail.getCron());
+                result.put(jobKey, false);
+                continue;
+            }
+            if (!replace && jobKeys(existing, jobKey.getGroup()).contains(jobKey)) {
+                logger.info(">>>>>>>>> addJobs fail, job already exist, jobGroup:{}, jobName:{}", jobKey.getGroup(), jobKey.getName());
+                result.put(jobKey, false);
+                continue;
+            }
+            CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(ruhnnJobDetail.getCron()).withMisfireHandlingInstructionDoNothing();
+            CronTrigger cronTrigger = TriggerBuilder.newTrigger().withIdentity(jobKey.getName(), jobKey.getGroup()).withSchedule(cronScheduleBuilder).build();
+            JobDetail jobDetail = JobBuilder.newJob(ExecuteJob.class).storeDurably(true).usingJobData(CivismJobCodec.compact(ruhnnJobDetail.getDataMap())).withIdentity(jobKey).build();
+            Set<Trigger> triggers = new HashSet<>();
+            triggers.add(cronTrigger);
+            triggersAndJobs.put(jobDetail, triggers);
+            result.put(jobKey, true);
+        }
+        if (triggersAndJobs.isEmpty()) {
+            return result;
+        }
+        try {
+            combCenterSchedulerBean.scheduleJobs(triggersAndJobs, replace);
+        } catch (ObjectAlreadyExistsException e) {
+            //校验之后其他节点添加了同名任务，整个事务回滚
+            logger.warn(">>>>>>>>> addJobs fail, job already exist, {}", e.getMessage());
+            for (JobDetail jobDetail : triggersAndJobs.keySet()) {
+                result.put(jobDetail.getKey(), false);
+            }
+            return result;
+        }
+        for (JobDetail jobDetail : triggersAndJobs.keySet()) {
+            precompile(jobDetail.getKey(), jobDetail.getJobDataMap());
+        }
+        logger.info(">>>>>>>>>>> addJobs success, count:{}, replace:{}", triggersAndJobs.size(), replace);
+        return result;
+    }
+
+    private static Set<JobKey> duplicatedKeys(Collection<CivismJobDetail> jobDetails) {
+        Set<JobKey> seen = new HashSet<>();
+        Set<JobKey> duplicated = new HashSet<>();
+        for (CivismJobDetail ruhnnJobDetail : jobDetails) {
+            JobKey jobKey = new JobKey(ruhnnJobDetail.getTaskName(), ruhnnJobDetail.getGroupName());
+            if (!seen.add(jobKey)) {
+                duplicated.add(jobKey);
+            }
+        }
+        return duplicated;
+    }
+
+    /**
+     * 批量删除任务，在一个事务中删除
+     *
+     * @return 每个任务的结果，任务不存在时为false
+     */
+    public Map<JobKey, Boolean> deleteJobs(Collection<JobKey> jobKeys) throws SchedulerException {
+        Map<JobKey, Boolean> result = new LinkedHashMap<>();
+        Map<String, Set<JobKey>> existing = new HashMap<>();
+        List<JobKey> toDelete = new ArrayList<>();
+        for (JobKey jobKey : jobKeys) {
+            if (jobKeys(existing, jobKey.getGroup()).contains(jobKey)) {
+                toDelete.add(jobKey);
+                result.put(jobKey, true);
+            } else {
+                result.put(jobKey, ephemeralJobScheduler.remove(jobKey.getGroup(), jobKey.getName()));
+            }
+        }
+        if (!toDelete.isEmpty()) {
+            combCenterSchedulerBean.deleteJobs(toDelete);
+            for (JobKey jobKey : toDelete) {
+                handlerManager.invalidate(jobKey);
+            }
+            logger.info(">>>>>>>>>>> deleteJobs success, count:{}", toDelete.size());
+        }
+        return result;
+    }
+
+    /**
+     * 暂停分组下的所有任务
+     *
+     * @return 分组下每个任务的结果
+     */
+    public Map<JobKey, Boolean> pauseGroup(String groupName) throws SchedulerException {
+        return setGroupPaused(groupName, true);
+    }
+
+    /**
+     * 恢复分组下的所有任务
+     *
+     * @return 分组下每个任务的结果
+     */
+    public Map<JobKey, Boolean> resumeGroup(String groupName) throws SchedulerException {
+        return setGroupPaused(groupName, false);
+    }
+
+    /**
+     * 逐个暂停、恢复分组下已有的trigger，不用 pauseTriggers(GroupMatcher)：
+     * 按分组暂停会在 QRTZ_PAUSED_TRIGGER_GRPS 记下分组，之后加入该分组的任务一创建就是暂停的
+     *
+     * @return 分组下每个任务的结果，以操作后的trigger状态为准，任务已删除或者操作失败时为false
+     */
+    private Map<JobKey, Boolean> setGroupPaused(String groupName, boolean paused) throws SchedulerException {
+        Map<JobKey, Boolean> result = new LinkedHashMap<>();
+        GroupMatcher<TriggerKey> matcher = GroupMatcher.triggerGroupEquals(groupName);
+        if (!paused && combCenterSchedulerBean.getPausedTriggerGroups().contains(groupName)) {
+            //以前按分组暂停留下的分组暂停记录
+            combCenterSchedulerBean.resumeTriggers(matcher);
+        }
+        for (TriggerKey triggerKey : combCenterSchedulerBean.getTriggerKeys(matcher)) {
+            result.put(JobKey.jobKey(triggerKey.getName(), triggerKey.getGroup()), setPaused(triggerKey, paused));
+        }
+        for (String taskName : ephemeralJobScheduler.taskNames(groupName)) {
+            result.put(JobKey.jobKey(taskName, groupName), ephemeralJobScheduler.setPaused(groupName, taskName, paused));
+        }
+        logger.info(">>>>>>>>>>> {} group success, group:{}, count:{}", paused ? "pause" : "resume", groupName, result.size());
+        return result;
+    }
+
+    private boolean setPaused(TriggerKey triggerKey, boolean paused) {
+        try {
+            if (paused) {
+                combCenterSchedulerBean.pauseTrigger(triggerKey);
+            } else {
+                combCenterSchedulerBean.resumeTrigger(triggerKey);
+            }
+            Trigger.TriggerState state = combCenterSchedulerBean.getTriggerState(triggerKey);
+            if (state == Trigger.TriggerState.NONE) {
+                return false;
+            }
+            return paused == (state == Trigger.TriggerState.PAUSED);
+        } catch (SchedulerException e) {
+            logger.warn(">>>>>>>>> {} trigger fail, triggerKey:{}", paused ? "pause" : "resume", triggerKey, e);
+            return false;
+        }
+    }
+
+    /**
+     * 分组下已有的任务，每个分组只查一次
+     */
+    private Set<JobKey> jobKeys(Map<String, Set<JobKey>> cache, String groupName) throws SchedulerException {
+        Set<JobKey> jobKeys = cache.get(groupName);
+        if (jobKeys == null) {
+            jobKeys = combCenterSchedulerBean.getJobKeys(GroupMatcher.jobGroupEquals(groupName));
+            cache.put(groupName, jobKeys);
+        }
+        return jobKeys;
+    }
+
+    /**
+     * 预先编译任务的路由链
+     */
+    private void precompile(JobKey jobKey, JobDataMap dataMap) {
+        CivismJob job = CivismJobCodec.read(dataMap);
+        if (job != null) {
+            handlerManager.compile(jobKey, job);
+        }
+    }
 
     public void destroy() {
         try {
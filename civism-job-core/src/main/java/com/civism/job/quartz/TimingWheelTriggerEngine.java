@@ -0,0 +1,517 @@
+package com.civism.job.quartz;
+
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.CivismJobCodec;
+import com.civism.job.schedule.GuavaJobApplication;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.quartz.CronExpression;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author star
+ * @date 2026/10/19 上午10:30
+ * 分层时间轮触发引擎，适合数量很大的秒级任务
+ * <p>
+ * 第0层 512 格，每格 tickMillis；往上每层 64 格，每格是下一层一圈的时间，共4层，tick为100毫秒时能覆盖约155天，
+ * 更远的触发时间先放在最高层，转到时再重新放置。新增、删除任务和每次触发都是 O(1)，
+ * 高层的格子转到时整格降到下一层(cascade)。
+ * <p>
+ * cron表达式新增时解析一次，相同的表达式共用；每次触发后算出下一次触发时间重新放入时间轮，
+ * 同一秒触发的相同表达式只算一次下一次触发时间。触发不访问数据库也不加锁，
+ * 只有单个时间轮线程操作格子，其他线程的新增、删除通过队列交给时间轮线程。
+ * 触发交给触发线程池执行，同一个任务上次触发还没结束时跳过本次；错过的触发不补(等同 MISFIRE_INSTRUCTION_DO_NOTHING)
+ */
+public class TimingWheelTriggerEngine implements LocalTriggerEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheelTriggerEngine.class);
+
+    private static final int L0_BITS = 9;
+
+    private static final int LN_BITS = 6;
+
+    private static final int LEVELS = 4;
+
+    private static final int L0_MASK = (1 << L0_BITS) - 1;
+
+    private static final int LN_MASK = (1 << LN_BITS) - 1;
+
+    /**
+     * 时间轮能直接放置的最大tick跨度
+     */
+    private static final long MAX_SPAN = 1L << (L0_BITS + (LEVELS - 1) * LN_BITS);
+
+    /**
+     * 触发回调
+     */
+    public interface Firer {
+        void fire(JobKey jobKey, CivismJob civismJob);
+    }
+
+    /**
+     * 默认交给调度执行器，和quartz触发走同一条路由链
+     */
+    private static final Firer DISPATCH = new Firer() {
+        @Override
+        public void fire(JobKey jobKey, CivismJob civismJob) {
+            GuavaJobApplication.jobDispatchExecutor.dispatch(jobKey, civismJob);
+        }
+    };
+
+    private final long tickMillis;
+
+    private final int threadCount;
+
+    private final Firer firer;
+
+    /**
+     * wheels[层][格]，只有时间轮线程访问
+     */
+    private final List<WheelTimer>[][] wheels;
+
+    private final ConcurrentHashMap<JobKey, WheelTimer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * 解析好的cron表达式，CronExpression 计算触发时间时只读，可以共用
+     */
+    private final Cache<String, CronExpression> expressions = CacheBuilder.newBuilder().maximumSize(4096).build();
+
+    /**
+     * 每个表达式最近一次算出的下一次触发时间 {基准秒, 下一次触发时间}，只有时间轮线程访问
+     */
+    private final Map<CronExpression, long[]> nextFireTimes = new IdentityHashMap<>();
+
+    /**
+     * 等待时间轮线程放置的定时器
+     */
+    private final ConcurrentLinkedQueue<WheelTimer> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 触发中的任务
+     */
+    private final Set<JobKey> firing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong fired = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final AtomicLong vetoed = new AtomicLong();
+
+    private volatile FireGuard fireGuard;
+
+    private volatile boolean shutdown = false;
+
+    private volatile long maxLagMillis;
+
+    private Thread worker;
+
+    private ThreadPoolExecutor firePool;
+
+    private long startMillis;
+
+    /**
+     * 当前tick，只有时间轮线程修改
+     */
+    private volatile long tick;
+
+    public TimingWheelTriggerEngine(long tickMillis, int threadCount) {
+        this(tickMillis, threadCount, DISPATCH);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheelTriggerEngine(long tickMillis, int threadCount, Firer firer) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.threadCount = threadCount;
+        this.firer = firer;
+        this.wheels = new List[LEVELS][];
+        for (int level = 0; level < LEVELS; level++) {
+            wheels[level] = new List[level == 0 ? L0_MASK + 1 : LN_MASK + 1];
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        init(System.currentTimeMillis());
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWheel();
+            }
+        });
+        worker.setDaemon(true);
+        worker.setName("civism-timing-wheel");
+        worker.start();
+        logger.info(">>>>>>>>>>> timing wheel trigger engine start, tickMillis:{}, threadCount:{}", tickMillis, threadCount);
+    }
+
+    @Override
+    public void standby() {
+        for (WheelTimer timer : timers.values()) {
+            timer.cancelled = true;
+        }
+        timers.clear();
+    }
+
+    @Override
+    public void schedule(JobKey jobKey, String cron, JobDataMap dataMap, boolean paused) throws SchedulerException {
+        CivismJob job = CivismJobCodec.read(dataMap);
+        if (job == null) {
+            throw new SchedulerException("job detail is not CivismJob, job:" + jobKey);
+        }
+        schedule(jobKey, cron, job, paused);
+    }
+
+    public void schedule(JobKey jobKey, String cron, CivismJob civismJob, boolean paused) throws SchedulerException {
+        CronExpression expression = parse(cron, jobKey);
+        WheelTimer timer = new WheelTimer(jobKey, expression, civismJob);
+        WheelTimer old = paused ? timers.remove(jobKey) : timers.put(jobKey, timer);
+        if (old != null) {
+            old.cancelled = true;
+        }
+        if (paused) {
+            return;
+        }
+        Date next = expression.getNextValidTimeAfter(new Date());
+        if (next == null) {
+            timers.remove(jobKey, timer);
+            return;
+        }
+        timer.nextFireTime = next.getTime();
+        pending.offer(timer);
+    }
+
+    @Override
+    public void unschedule(JobKey jobKey) {
+        WheelTimer timer = timers.remove(jobKey);
+        if (timer != null) {
+            timer.cancelled = true;
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        standby();
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+        if (firePool != null) {
+            firePool.shutdown();
+        }
+    }
+
+    /**
+     * 时间轮中的任务数
+     */
+    public int size() {
+        return timers.size();
+    }
+
+    public long getFired() {
+        return fired.get();
+    }
+
+    /**
+     * 上次触发还没结束跳过的次数
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * 触发前检查不通过丢弃的次数
+     */
+    public long getVetoed() {
+        return vetoed.get();
+    }
+
+    @Override
+    public void setFireGuard(FireGuard fireGuard) {
+        this.fireGuard = fireGuard;
+    }
+
+    /**
+     * 时间轮线程落后于墙上时间的最大值
+     */
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    /**
+     * 创建触发线程池，从startMillis开始计tick；不启动时间轮线程时由调用方用 {@link #step()} 推进
+     */
+    void init(long startMillis) {
+        final AtomicInteger count = new AtomicInteger(0);
+        firePool = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("civism-wheel-fire-" + count.incrementAndGet());
+                return thread;
+            }
+        });
+        this.startMillis = startMillis;
+        tick = 0;
+    }
+
+    /**
+     * 放置新增的任务并推进一格，只在时间轮线程中调用
+     */
+    void step() {
+        WheelTimer timer;
+        while ((timer = pending.poll()) != null) {
+            if (!timer.cancelled) {
+                timer.deadlineTick = toTick(timer.nextFireTime);
+                place(timer, tick + 1);
+            }
+        }
+        try {
+            advance();
+        } catch (Throwable t) {
+            logger.error("时间轮推进异常>>>>>>>tick={}", tick, t);
+        }
+    }
+
+    long getTick() {
+        return tick;
+    }
+
+    private void runWheel() {
+        while (!shutdown) {
+            long target = startMillis + (tick + 1) * tickMillis;
+            long now = System.currentTimeMillis();
+            if (now < target) {
+                try {
+                    Thread.sleep(target - now);
+                } catch (InterruptedException e) {
+                    if (shutdown) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            if (now - target > maxLagMillis) {
+                maxLagMillis = now - target;
+            }
+            step();
+        }
+    }
+
+    /**
+     * 推进一格：先把转到的高层格子降下来，再触发第0层当前格
+     */
+    private void advance() {
+        long now = ++tick;
+        if ((now & L0_MASK) == 0) {
+            int level = 1;
+            //当前层转完一圈时上一层也要降
+            while (level < LEVELS - 1 && slot(now, level) == 0) {
+                level++;
+            }
+            for (; level >= 1; level--) {
+                cascade(level, slot(now, level));
+            }
+        }
+        List<WheelTimer> bucket = wheels[0][(int) (now & L0_MASK)];
+        if (bucket == null) {
+            return;
+        }
+        wheels[0][(int) (now & L0_MASK)] = null;
+        for (WheelTimer timer : bucket) {
+            if (timer.cancelled) {
+                continue;
+            }
+            if (timer.deadlineTick > now) {
+                place(timer, now + 1);
+                continue;
+            }
+            fire(timer);
+            long next = nextFireTime(timer.expression, Math.max(timer.nextFireTime, System.currentTimeMillis()));
+            if (next < 0) {
+                timers.remove(timer.jobKey, timer);
+                continue;
+            }
+            timer.nextFireTime = next;
+            timer.deadlineTick = toTick(timer.nextFireTime);
+            place(timer, now + 1);
+        }
+    }
+
+    private CronExpression parse(final String cron, JobKey jobKey) throws SchedulerException {
+        try {
+            return expressions.get(cron, new Callable<CronExpression>() {
+                @Override
+                public CronExpression call() throws ParseException {
+                    return new CronExpression(cron);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new SchedulerException("invalid cron:" + cron + ", job:" + jobKey, e.getCause());
+        }
+    }
+
+    /**
+     * 下一次触发时间，cron精确到秒，同一秒之后的下一次触发时间相同
+     *
+     * @return 没有下一次时返回-1
+     */
+    private long nextFireTime(CronExpression expression, long after) {
+        long second = after / 1000;
+        long[] cached = nextFireTimes.get(expression);
+        if (cached != null && cached[0] == second) {
+            return cached[1];
+        }
+        Date next = expression.getNextValidTimeAfter(new Date(after));
+        long time = next == null ? -1 : next.getTime();
+        if (nextFireTimes.size() > 4096) {
+            nextFireTimes.clear();
+        }
+        nextFireTimes.put(expression, new long[]{second, time});
+        return time;
+    }
+
+    /**
+     * 在推进到新的一格、触发第0层当前格之前调用，到期的任务放到第0层当前格，本格就触发
+     */
+    private void cascade(int level, int index) {
+        List<WheelTimer> bucket = wheels[level][index];
+        if (bucket == null) {
+            return;
+        }
+        wheels[level][index] = null;
+        for (WheelTimer timer : bucket) {
+            if (!timer.cancelled) {
+                place(timer, tick);
+            }
+        }
+    }
+
+    /**
+     * @param earliest 最早放置的tick，已经到期的任务放在这一格；第0层当前格已经取出时为下一格
+     */
+    private void place(WheelTimer timer, long earliest) {
+        long deadline = Math.max(timer.deadlineTick, earliest);
+        long delta = deadline - tick;
+        int level = 0;
+        if (delta >= MAX_SPAN) {
+            //超出时间轮范围，先放在最高层最远的格子，转到时重新放置
+            deadline = tick + MAX_SPAN - 1;
+            level = LEVELS - 1;
+        } else {
+            while (level < LEVELS - 1 && delta >= 1L << (L0_BITS + level * LN_BITS)) {
+                level++;
+            }
+        }
+        int index = slot(deadline, level);
+        List<WheelTimer> bucket = wheels[level][index];
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            wheels[level][index] = bucket;
+        }
+        bucket.add(timer);
+    }
+
+    private static int slot(long tick, int level) {
+        if (level == 0) {
+            return (int) (tick & L0_MASK);
+        }
+        return (int) ((tick >>> (L0_BITS + (level - 1) * LN_BITS)) & LN_MASK);
+    }
+
+    /**
+     * 触发时间换算成tick，向上取整，不会提前触发
+     */
+    private long toTick(long time) {
+        long offset = time - startMillis;
+        return offset <= 0 ? 0 : (offset + tickMillis - 1) / tickMillis;
+    }
+
+    private void fire(final WheelTimer timer) {
+        final JobKey jobKey = timer.jobKey;
+        if (!firing.add(jobKey)) {
+            skipped.incrementAndGet();
+            return;
+        }
+        final CivismJob civismJob = timer.civismJob.copy();
+        try {
+            firePool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        FireGuard guard = fireGuard;
+                        if (guard != null && !guard.allow(jobKey)) {
+                            vetoed.incrementAndGet();
+                            return;
+                        }
+                        firer.fire(jobKey, civismJob);
+                    } catch (Throwable t) {
+                        logger.error("时间轮任务触发异常>>>>>>>job={}", jobKey, t);
+                    } finally {
+                        firing.remove(jobKey);
+                    }
+                }
+            });
+            fired.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            firing.remove(jobKey);
+        }
+    }
+
+    private static class WheelTimer {
+
+        private final JobKey jobKey;
+
+        private final CronExpression expression;
+
+        private final CivismJob civismJob;
+
+        /**
+         * 下一次触发的时间，毫秒
+         */
+        private long nextFireTime;
+
+        /**
+         * 下一次触发的tick，只有时间轮线程访问
+         */
+        private long deadlineTick;
+
+        private volatile boolean cancelled = false;
+
+        WheelTimer(JobKey jobKey, CronExpression expression, CivismJob civismJob) {
+            this.jobKey = jobKey;
+            this.expression = expression;
+            this.civismJob = civismJob;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.civism.job.route;
 
 
+import com.alipay.remoting.InvokeContext;
+import com.civism.rpc.RpcRequest;
+import com.civism.rpc.RpcSerializer;
+
 import java.io.Serializable;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * @author star
@@ -49,7 +54,7 @@ public class CivismJob implements Serializable {
     private String invokeType;
 
     /**
-     * 负载方式
+     * 负载方式 0随机 1指定IP 2轮询 3最少调用中 4响应时间 5一致性hash
      */
     private Integer loadWay;
 
@@ -58,6 +63,21 @@ public class CivismJob implements Serializable {
      */
     private String limitIp;
 
+    /**
+     * 一致性hash负载的路由key，为空时用params计算
+     */
+    private String routeKey;
+
+    /**
+     * 广播、分片调用整体成功的判断方式 ALL QUORUM ANY，为空时为ALL
+     */
+    private String fanOutPolicy;
+
+    /**
+     * 调用的序列化方式 HESSIAN CIVISM，为空时为HESSIAN
+     */
+    private String serializer;
+
     private Object[] params;
 
     private Class[] paramsType;
@@ -157,4 +177,70 @@ public class CivismJob implements Serializable {
     public void setLimitIp(String limitIp) {
         this.limitIp = limitIp;
     }
+
+    public String getRouteKey() {
+        return routeKey;
+    }
+
+    public void setRouteKey(String routeKey) {
+        this.routeKey = routeKey;
+    }
+
+    public String getFanOutPolicy() {
+        return fanOutPolicy;
+    }
+
+    public void setFanOutPolicy(String fanOutPolicy) {
+        this.fanOutPolicy = fanOutPolicy;
+    }
+
+    public String getSerializer() {
+        return serializer;
+    }
+
+    public void setSerializer(String serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * 浅拷贝，路由时会修改 executeIp，每次调度用自己的副本
+     */
+    public CivismJob copy() {
+        CivismJob job = new CivismJob();
+        job.beanName = beanName;
+        job.method = method;
+        job.jobType = jobType;
+        job.targetIps = targetIps;
+        job.executeIp = executeIp;
+        job.timeOut = timeOut;
+        job.invokeType = invokeType;
+        job.loadWay = loadWay;
+        job.limitIp = limitIp;
+        job.routeKey = routeKey;
+        job.fanOutPolicy = fanOutPolicy;
+        job.serializer = serializer;
+        job.params = params;
+        job.paramsType = paramsType;
+        return job;
+    }
+
+    /**
+     * 按任务定义创建一次调用请求，每次调用独立的requestId
+     */
+    public RpcRequest newRequest() {
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(UUID.randomUUID().toString().replaceAll("-", ""));
+        request.setName(beanName);
+        request.setMethod(method);
+        request.setParams(params);
+        request.setParamsType(paramsType);
+        return request;
+    }
+
+    /**
+     * 按任务的序列化方式创建一次调用的上下文
+     */
+    public InvokeContext newInvokeContext() {
+        return RpcSerializer.of(serializer).newInvokeContext();
+    }
 }
@@ -0,0 +1,258 @@
+package com.civism.job.route;
+
+import com.alibaba.fastjson.JSON;
+import com.civism.constants.CivismConstants;
+import com.google.common.hash.Hashing;
+import org.apache.commons.lang3.ClassUtils;
+import org.quartz.JobDataMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author star
+ * @date 2026/10/19 下午2:10
+ * CivismJob 的紧凑编码，代替 JobDataMap 里的java序列化对象
+ * <p>
+ * 格式：1字节格式版本，之后是若干个字段，每个字段 1字节tag + 4字节长度 + UTF-8内容，tag为0结束。
+ * 空字段不写；解码时跳过不认识的tag，CivismJob 增加字段只需要新增tag，旧数据照常解码。
+ * params 按 paramsType 用json编码
+ */
+public class CivismJobCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(CivismJobCodec.class);
+
+    private static final byte FORMAT = 1;
+
+    private static final byte END = 0;
+    private static final byte BEAN_NAME = 1;
+    private static final byte METHOD = 2;
+    private static final byte JOB_TYPE = 3;
+    private static final byte TARGET_IPS = 4;
+    private static final byte EXECUTE_IP = 5;
+    private static final byte TIME_OUT = 6;
+    private static final byte INVOKE_TYPE = 7;
+    private static final byte LOAD_WAY = 8;
+    private static final byte LIMIT_IP = 9;
+    private static final byte ROUTE_KEY = 10;
+    private static final byte FAN_OUT_POLICY = 11;
+    private static final byte PARAMS_TYPE = 12;
+    private static final byte PARAMS = 13;
+    private static final byte SERIALIZER = 14;
+
+    public static byte[] encode(CivismJob job) {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+             DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeByte(FORMAT);
+            write(out, BEAN_NAME, job.getBeanName());
+            write(out, METHOD, job.getMethod());
+            write(out, JOB_TYPE, job.getJobType());
+            write(out, TARGET_IPS, job.getTargetIps() == null ? null : JSON.toJSONString(job.getTargetIps()));
+            write(out, EXECUTE_IP, job.getExecuteIp());
+            write(out, TIME_OUT, job.getTimeOut());
+            write(out, INVOKE_TYPE, job.getInvokeType());
+            write(out, LOAD_WAY, job.getLoadWay());
+            write(out, LIMIT_IP, job.getLimitIp());
+            write(out, ROUTE_KEY, job.getRouteKey());
+            write(out, FAN_OUT_POLICY, job.getFanOutPolicy());
+            write(out, SERIALIZER, job.getSerializer());
+            if (job.getParamsType() != null) {
+                String[] names = new String[job.getParamsType().length];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = job.getParamsType()[i].getName();
+                }
+                write(out, PARAMS_TYPE, JSON.toJSONString(names));
+            }
+            write(out, PARAMS, job.getParams() == null ? null : JSON.toJSONString(job.getParams()));
+            out.writeByte(END);
+            out.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("encode job fail, job:" + job.getJobName(), e);
+        }
+    }
+
+    public static CivismJob decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte format = in.readByte();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("unsupported job format:" + format);
+            }
+            CivismJob job = new CivismJob();
+            String params = null;
+            byte tag;
+            while ((tag = in.readByte()) != END) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                switch (tag) {
+                    case BEAN_NAME:
+                        job.setBeanName(value);
+                        break;
+                    case METHOD:
+                        job.setMethod(value);
+                        break;
+                    case JOB_TYPE:
+                        job.setJobType(Integer.valueOf(value));
+                        break;
+                    case TARGET_IPS:
+                        job.setTargetIps(new HashSet<>(JSON.parseArray(value, String.class)));
+                        break;
+                    case EXECUTE_IP:
+                        job.setExecuteIp(value);
+                        break;
+                    case TIME_OUT:
+                        job.setTimeOut(Integer.valueOf(value));
+                        break;
+                    case INVOKE_TYPE:
+                        job.setInvokeType(value);
+                        break;
+                    case LOAD_WAY:
+                        job.setLoadWay(Integer.valueOf(value));
+                        break;
+                    case LIMIT_IP:
+                        job.setLimitIp(value);
+                        break;
+                    case ROUTE_KEY:
+                        job.setRouteKey(value);
+                        break;
+                    case FAN_OUT_POLICY:
+                        job.setFanOutPolicy(value);
+                        break;
+                    case SERIALIZER:
+                        job.setSerializer(value);
+                        break;
+                    case PARAMS_TYPE:
+                        List<String> names = JSON.parseArray(value, String.class);
+                        Class[] types = new Class[names.size()];
+                        for (int i = 0; i < types.length; i++) {
+                            types[i] = ClassUtils.getClass(names.get(i));
+                        }
+                        job.setParamsType(types);
+                        break;
+                    case PARAMS:
+                        //参数按类型解码，要等 paramsType 读完
+                        params = value;
+                        break;
+                    default:
+                        //新版本增加的字段
+                        break;
+                }
+            }
+            if (params != null) {
+                if (job.getParamsType() != null) {
+                    job.setParams(JSON.parseArray(params, (Type[]) job.getParamsType()).toArray());
+                } else {
+                    job.setParams(JSON.parseArray(params).toArray());
+                }
+            }
+            return job;
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalArgumentException("decode job fail", e);
+        }
+    }
+
+    /**
+     * 编码的版本号，内容不变版本号不变
+     */
+    public static long version(byte[] data) {
+        return Hashing.murmur3_128().hashBytes(data).asLong();
+    }
+
+    /**
+     * 把 JobDataMap 里的 CivismJob 换成编码后的内容和版本号，编码失败时保持原样
+     */
+    public static JobDataMap compact(JobDataMap dataMap) {
+        Object job = dataMap == null ? null : dataMap.get(CivismConstants.JOB_DETAIL);
+        if (!(job instanceof CivismJob)) {
+            return dataMap;
+        }
+        byte[] data;
+        try {
+            data = encode((CivismJob) job);
+            //参数不能按json原样还原时保留java序列化
+            if (!sameParams((CivismJob) job, decode(data))) {
+                logger.info("任务参数json编码后类型或者值变化，使用java序列化>>>>>>>job={}", ((CivismJob) job).getJobName());
+                return dataMap;
+            }
+        } catch (Exception e) {
+            logger.warn("任务编码失败，使用java序列化>>>>>>>job={}", ((CivismJob) job).getJobName(), e);
+            return dataMap;
+        }
+        JobDataMap compacted = new JobDataMap(dataMap);
+        compacted.remove(CivismConstants.JOB_DETAIL);
+        compacted.put(CivismConstants.JOB_DEFINITION, data);
+        compacted.put(CivismConstants.JOB_VERSION, version(data));
+        return compacted;
+    }
+
+    /**
+     * 解码后的参数类型和参数是否和原来的一致，每个参数的类和值都要相同；
+     * 没有 paramsType 或者类型是 Object、接口时 fastjson 会还原成 JSONObject、Integer 等，日期会变成数字
+     */
+    private static boolean sameParams(CivismJob job, CivismJob decoded) {
+        if (!Arrays.equals(job.getParamsType(), decoded.getParamsType())) {
+            return false;
+        }
+        Object[] params = job.getParams();
+        Object[] decodedParams = decoded.getParams();
+        if (params == null || decodedParams == null) {
+            return params == decodedParams;
+        }
+        if (params.length != decodedParams.length) {
+            return false;
+        }
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            Object decodedParam = decodedParams[i];
+            if (param == null || decodedParam == null) {
+                if (param != decodedParam) {
+                    return false;
+                }
+                continue;
+            }
+            if (param.getClass() != decodedParam.getClass() || !Objects.deepEquals(param, decodedParam)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取任务定义，兼容编码后的和java序列化的
+     *
+     * @return 没有任务定义时返回null
+     */
+    public static CivismJob read(JobDataMap dataMap) {
+        if (dataMap == null) {
+            return null;
+        }
+        Object data = dataMap.get(CivismConstants.JOB_DEFINITION);
+        if (data instanceof byte[]) {
+            return decode((byte[]) data);
+        }
+        Object job = dataMap.get(CivismConstants.JOB_DETAIL);
+        return job instanceof CivismJob ? (CivismJob) job : null;
+    }
+
+    private static void write(DataOutputStream out, byte tag, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        out.writeByte(tag);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
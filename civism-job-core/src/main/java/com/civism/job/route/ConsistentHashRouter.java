@@ -0,0 +1,231 @@
+package com.civism.job.route;
+
+import com.civism.utils.EndpointRing;
+import com.civism.utils.IpLoadRouteUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午8:20
+ * 一致性hash路由，每个 IpLoadRouteUtils 的key一个hash环，每台机器映射多个虚拟节点
+ * <p>
+ * 机器上下线时只增删该机器自己的虚拟节点，大约只有 1/N 的路由key换机器；
+ * 连接断开等不经过 ZkChildIpListener 的变化在查找时和 IpLoadRouteUtils 对齐；
+ * 和 RouteCandidates 一致，jobType为0并且指定了 targetIps 的任务只在 targetIps 中选择，同一组 targetIps 共用一个环，
+ * 这些环按 targetIps 缓存，数量有上限，触发时不再排序和拼接key
+ */
+@Service
+public class ConsistentHashRouter {
+
+    /**
+     * 每台机器的虚拟节点数
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    /**
+     * 指定机器的环的数量上限
+     */
+    private static final int MAX_FIXED_RINGS = 1024;
+
+    private final ConcurrentHashMap<String, HashRing> rings = new ConcurrentHashMap<>();
+
+    /**
+     * 指定机器的环，targetIps 是任务定义的一部分，环建好后不再变化
+     */
+    private final Cache<Set<String>, HashRing> fixedRings = CacheBuilder.newBuilder().maximumSize(MAX_FIXED_RINGS).build();
+
+    /**
+     * 机器上线
+     */
+    public void add(String routeKey, String address) {
+        ring(routeKey).add(address);
+    }
+
+    /**
+     * 机器下线
+     */
+    public void remove(String routeKey, String address) {
+        HashRing ring = rings.get(routeKey);
+        if (ring != null) {
+            ring.remove(address);
+        }
+    }
+
+    /**
+     * 按任务的候选机器选择
+     *
+     * @param key 路由key
+     * @return 没有机器时返回null
+     */
+    public String route(CivismJob civismJob, String key) {
+        if (RouteCandidates.isFixed(civismJob)) {
+            return routeFixed(civismJob.getTargetIps(), key);
+        }
+        return route(RouteCandidates.routeKey(civismJob), key);
+    }
+
+    /**
+     * 在指定的机器中选择
+     */
+    private String routeFixed(Set<String> targetIps, String key) {
+        HashRing ring = fixedRings.getIfPresent(targetIps);
+        if (ring == null) {
+            //同时建环时各自建，结果相同
+            ring = new HashRing();
+            ring.sync(new ArrayList<>(new TreeSet<>(targetIps)));
+            fixedRings.put(ImmutableSet.copyOf(targetIps), ring);
+        }
+        return ring.get(hash(key));
+    }
+
+    /**
+     * 按路由key选择机器
+     *
+     * @param routeKey IpLoadRouteUtils 中的key
+     * @param key      路由key
+     * @return 没有机器时返回null
+     */
+    public String route(String routeKey, String key) {
+        EndpointRing<String> live = IpLoadRouteUtils.getRing(routeKey);
+        if (live == null || live.isEmpty()) {
+            return null;
+        }
+        HashRing ring = ring(routeKey);
+        String address = ring.get(hash(key));
+        if (address == null || !live.contains(address) || ring.size() != live.size()) {
+            ring.sync(live.snapshot());
+            address = ring.get(hash(key));
+        }
+        return address;
+    }
+
+    private HashRing ring(String routeKey) {
+        HashRing ring = rings.get(routeKey);
+        if (ring == null) {
+            HashRing newRing = new HashRing();
+            ring = rings.putIfAbsent(routeKey, newRing);
+            if (ring == null) {
+                ring = newRing;
+            }
+        }
+        return ring;
+    }
+
+    static long hash(String key) {
+        return HASH.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * 排好序的虚拟节点，写时复制，读不加锁
+     */
+    static class HashRing {
+
+        private volatile Points points = new Points(new long[0], new String[0], 0);
+
+        private final Set<String> members = new HashSet<>();
+
+        String get(long hash) {
+            Points p = points;
+            long[] h = p.hashes;
+            if (h.length == 0) {
+                return null;
+            }
+            int i = Arrays.binarySearch(h, hash);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            return p.nodes[i == h.length ? 0 : i];
+        }
+
+        int size() {
+            return points.size;
+        }
+
+        synchronized void add(String address) {
+            if (!members.add(address)) {
+                return;
+            }
+            long[] oldHashes = points.hashes;
+            String[] oldNodes = points.nodes;
+            long[] added = new long[VIRTUAL_NODES];
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                added[i] = hash(address + "#" + i);
+            }
+            Arrays.sort(added);
+            long[] newHashes = new long[oldHashes.length + added.length];
+            String[] newNodes = new String[newHashes.length];
+            int i = 0, j = 0, k = 0;
+            while (i < oldHashes.length || j < added.length) {
+                if (j >= added.length || (i < oldHashes.length && oldHashes[i] <= added[j])) {
+                    newHashes[k] = oldHashes[i];
+                    newNodes[k++] = oldNodes[i++];
+                } else {
+                    newHashes[k] = added[j++];
+                    newNodes[k++] = address;
+                }
+            }
+            points = new Points(newHashes, newNodes, members.size());
+        }
+
+        synchronized void remove(String address) {
+            if (!members.remove(address)) {
+                return;
+            }
+            long[] oldHashes = points.hashes;
+            String[] oldNodes = points.nodes;
+            long[] newHashes = new long[oldHashes.length];
+            String[] newNodes = new String[oldNodes.length];
+            int k = 0;
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (!oldNodes[i].equals(address)) {
+                    newHashes[k] = oldHashes[i];
+                    newNodes[k++] = oldNodes[i];
+                }
+            }
+            points = new Points(Arrays.copyOf(newHashes, k), Arrays.copyOf(newNodes, k), members.size());
+        }
+
+        /**
+         * 和实际的机器列表对齐，只增删有差异的机器
+         */
+        synchronized void sync(List<String> live) {
+            Set<String> liveSet = new HashSet<>(live);
+            for (String member : new HashSet<>(members)) {
+                if (!liveSet.contains(member)) {
+                    remove(member);
+                }
+            }
+            for (String address : live) {
+                add(address);
+            }
+        }
+    }
+
+    private static class Points {
+        private final long[] hashes;
+        private final String[] nodes;
+        private final int size;
+
+        Points(long[] hashes, String[] nodes, int size) {
+            this.hashes = hashes;
+            this.nodes = nodes;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.civism.job.route;
+
+import com.civism.utils.IpLoadRouteUtils;
+import com.civism.utils.MapEndpointRing;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午7:30
+ * 每个bean在每台执行机器上的响应时间和失败率，指数加权移动平均
+ * <p>
+ * 由 SYNC、FUTURE、CALLBACK 调用结束时记录，权重按距离上次记录的时间衰减，
+ * 采样少的机器不会因为一次慢调用长期不被选中；读写都不加锁。
+ * 失败的调用(被拒绝、连接失败)往往很快返回，只计入失败率，不计入响应时间；
+ * 失败率按固定的惩罚时间加到得分上，快速失败的机器得分不会比正常但慢的机器低
+ * <p>
+ * 机器从 IpLoadRouteUtils 中全部移除后清除它的数据，移除前发出、之后才返回的调用由 InFlightTracker 跳过不再记录
+ */
+@Service
+public class EndpointStats {
+
+    /**
+     * 衰减时间常数，距离上次记录越久，旧值权重越低
+     */
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 超过该时间没有记录的机器当作没有数据，重新参与探测
+     */
+    private static final long STALE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    /**
+     * 失败率为1时加到平均响应时间上的惩罚时间；只有失败记录的机器平均响应时间也按它计算
+     */
+    private static final double ERROR_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicReference<Sample>>> stats = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        IpLoadRouteUtils.addRemovalListener(new MapEndpointRing.RemovalListener<String>() {
+            @Override
+            public void removed(String address) {
+                remove(address);
+            }
+        });
+    }
+
+    /**
+     * 清除机器在所有bean上的数据
+     */
+    public void remove(String address) {
+        for (ConcurrentHashMap<String, AtomicReference<Sample>> endpoints : stats.values()) {
+            endpoints.remove(address);
+        }
+    }
+
+    /**
+     * 记录一次调用结果
+     *
+     * @param beanName     执行的bean
+     * @param address      执行机器地址
+     * @param latencyNanos 响应时间
+     * @param failed       是否失败
+     */
+    public void record(String beanName, String address, long latencyNanos, boolean failed) {
+        AtomicReference<Sample> ref = sampleRef(beanName, address);
+        long now = System.nanoTime();
+        double error = failed ? 1 : 0;
+        for (; ; ) {
+            Sample current = ref.get();
+            Sample next;
+            if (current == null) {
+                next = new Sample(failed ? ERROR_PENALTY_NANOS : latencyNanos, error, now);
+            } else {
+                double w = Math.exp(-(double) Math.max(0, now - current.time) / DECAY_NANOS);
+                //两次记录间隔很短时也要让新值有一定权重
+                w = Math.min(w, 0.9);
+                double latency = failed ? current.latency : current.latency * w + latencyNanos * (1 - w);
+                next = new Sample(latency, current.error * w + error * (1 - w), now);
+            }
+            if (ref.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 调度得分，越小越好；没有数据或者数据过期的机器得分为0，优先探测
+     *
+     * @param inFlight 该机器当前调用中数量
+     */
+    public double score(String beanName, String address, int inFlight) {
+        Sample sample = sample(beanName, address);
+        if (sample == null || System.nanoTime() - sample.time > STALE_NANOS) {
+            return 0;
+        }
+        return (sample.latency + ERROR_PENALTY_NANOS * sample.error) * (inFlight + 1);
+    }
+
+    /**
+     * 平均响应时间，毫秒，没有数据时返回-1
+     */
+    public double latencyMillis(String beanName, String address) {
+        Sample sample = sample(beanName, address);
+        return sample == null ? -1 : sample.latency / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 失败率，没有数据时返回-1
+     */
+    public double errorRate(String beanName, String address) {
+        Sample sample = sample(beanName, address);
+        return sample == null ? -1 : sample.error;
+    }
+
+    private Sample sample(String beanName, String address) {
+        ConcurrentHashMap<String, AtomicReference<Sample>> endpoints = stats.get(beanName);
+        if (endpoints == null) {
+            return null;
+        }
+        AtomicReference<Sample> ref = endpoints.get(address);
+        return ref == null ? null : ref.get();
+    }
+
+    private AtomicReference<Sample> sampleRef(String beanName, String address) {
+        ConcurrentHashMap<String, AtomicReference<Sample>> endpoints = stats.get(beanName);
+        if (endpoints == null) {
+            ConcurrentHashMap<String, AtomicReference<Sample>> newEndpoints = new ConcurrentHashMap<>();
+            endpoints = stats.putIfAbsent(beanName, newEndpoints);
+            if (endpoints == null) {
+                endpoints = newEndpoints;
+            }
+        }
+        AtomicReference<Sample> ref = endpoints.get(address);
+        if (ref == null) {
+            AtomicReference<Sample> newRef = new AtomicReference<>();
+            ref = endpoints.putIfAbsent(address, newRef);
+            if (ref == null) {
+                ref = newRef;
+            }
+        }
+        return ref;
+    }
+
+    private static class Sample {
+        private final double latency;
+        private final double error;
+        private final long time;
+
+        Sample(double latency, double error, long time) {
+            this.latency = latency;
+            this.error = error;
+            this.time = time;
+        }
+    }
+}
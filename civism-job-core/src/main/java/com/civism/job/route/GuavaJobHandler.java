@@ -1,35 +1,48 @@
 package com.civism.job.route;
 
-import java.util.LinkedList;
-import java.util.List;
-
 /**
  * @author star
  * @date 2018/8/8 下午2:14
+ * 责任链节点，链编译好后不可变，可以被所有调度线程复用
+ * <p>
+ * 每个节点持有本节点的处理器和下一个节点，处理器里调用 handler.doHandler(job, handler) 即进入下一个节点
  */
 public class GuavaJobHandler implements Handler {
 
+    /**
+     * 链尾，什么都不做
+     */
+    private static final GuavaJobHandler TAIL = new GuavaJobHandler(null, null);
+
+    private final Handler handler;
 
-    private List<Handler> handlers = new LinkedList<>();
+    private final GuavaJobHandler next;
+
+    private GuavaJobHandler(Handler handler, GuavaJobHandler next) {
+        this.handler = handler;
+        this.next = next;
+    }
 
     /**
-     * 计数器
+     * 按顺序编译一条责任链
+     *
+     * @param handlers 处理器
+     * @return 链头
      */
-    private int index = 0;
-
-    public GuavaJobHandler addHander(Handler handler) {
-        handlers.add(handler);
-        return this;
+    public static GuavaJobHandler compile(Handler... handlers) {
+        GuavaJobHandler node = TAIL;
+        for (int i = handlers.length - 1; i >= 0; i--) {
+            node = new GuavaJobHandler(handlers[i], node);
+        }
+        return node;
     }
 
     @Override
     public void doHandler(CivismJob ruhnnJob, GuavaJobHandler handler) {
-        if (index == handlers.size()) {
+        if (this.handler == null) {
             return;
         }
-        Handler baseHandler = handlers.get(index);
-        index++;
-        baseHandler.doHandler(ruhnnJob, handler);
+        this.handler.doHandler(ruhnnJob, next);
     }
 
 }
@@ -2,9 +2,13 @@ package com.civism.job.route;
 
 
 import com.civism.job.route.chain.*;
+import org.quartz.JobKey;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author star
@@ -37,6 +41,24 @@ public class HandlerManager {
     @Resource
     private BalanceLoadHandler balanceLoadHandler;
 
+    /**
+     * 最少调用中策略
+     */
+    @Resource
+    private LeastInFlightLoadHandler leastInFlightLoadHandler;
+
+    /**
+     * 响应时间策略
+     */
+    @Resource
+    private LeastLatencyLoadHandler leastLatencyLoadHandler;
+
+    /**
+     * 一致性hash策略
+     */
+    @Resource
+    private ConsistentHashLoadHandler consistentHashLoadHandler;
+
 
     /**
      * 执行任务责任链，责任链末端
@@ -44,33 +66,90 @@ public class HandlerManager {
     @Resource
     private ExecuteJobHandler executeJobHandler;
 
+    @Resource
+    private JobDefinitionCache jobDefinitionCache;
+
+
+    /**
+     * 编译好的路由链，key为任务的jobKey
+     */
+    private final ConcurrentHashMap<JobKey, RoutePipeline> pipelines = new ConcurrentHashMap<>();
+
 
     public void handler(CivismJob ruhnnJob) {
-        GuavaJobHandler guavaJobHandler = new GuavaJobHandler();
-        // 1固定IP
-        if (ruhnnJob.getJobType().intValue() == 1) {
-            guavaJobHandler.addHander(jobTypeHandler);
+        handler(JobKey.jobKey(ruhnnJob.getJobName()), ruhnnJob);
+    }
+
+    /**
+     * 执行任务路由，复用已编译的路由链
+     *
+     * @param jobKey  任务key
+     * @param ruhnnJob 任务定义
+     */
+    public void handler(JobKey jobKey, CivismJob ruhnnJob) {
+        if (ruhnnJob.getLoadWay() == null) {
+            ruhnnJob.setLoadWay(0);
+        }
+        RoutePipeline pipeline = pipelines.get(jobKey);
+        if (pipeline == null || !pipeline.matches(ruhnnJob)) {
+            pipeline = compile(jobKey, ruhnnJob);
         }
+        pipeline.execute(ruhnnJob);
+    }
 
+    /**
+     * 任务注册或修改时预先编译路由链
+     *
+     * @param jobKey  任务key
+     * @param ruhnnJob 任务定义
+     */
+    public RoutePipeline compile(JobKey jobKey, CivismJob ruhnnJob) {
         if (ruhnnJob.getLoadWay() == null) {
             ruhnnJob.setLoadWay(0);
         }
+        List<Handler> handlers = new ArrayList<>(3);
+        // 1固定IP
+        if (ruhnnJob.getJobType().intValue() == 1) {
+            handlers.add(jobTypeHandler);
+        }
         switch (ruhnnJob.getLoadWay()) {
             case 0:
-                guavaJobHandler.addHander(randomLoadBalanceHandler);
+                handlers.add(randomLoadBalanceHandler);
                 break;
             case 1:
-                guavaJobHandler.addHander(designateIpLoadBalanceHandler);
+                handlers.add(designateIpLoadBalanceHandler);
                 break;
             case 2:
-                guavaJobHandler.addHander(balanceLoadHandler);
+                handlers.add(balanceLoadHandler);
+                break;
+            case 3:
+                handlers.add(leastInFlightLoadHandler);
+                break;
+            case 4:
+                handlers.add(leastLatencyLoadHandler);
+                break;
+            case 5:
+                handlers.add(consistentHashLoadHandler);
                 break;
             default:
-                guavaJobHandler.addHander(randomLoadBalanceHandler);
+                handlers.add(randomLoadBalanceHandler);
                 break;
         }
         //末端策略
-        guavaJobHandler.addHander(executeJobHandler);
-        guavaJobHandler.doHandler(ruhnnJob, guavaJobHandler);
+        handlers.add(executeJobHandler);
+        RoutePipeline pipeline = new RoutePipeline(ruhnnJob.getJobType(), ruhnnJob.getLoadWay(),
+                GuavaJobHandler.compile(handlers.toArray(new Handler[handlers.size()])));
+        pipelines.put(jobKey, pipeline);
+        return pipeline;
+    }
+
+    /**
+     * 任务删除或定义变化时清除路由链
+     *
+     * @param jobKey 任务key
+     */
+    public void invalidate(JobKey jobKey) {
+        pipelines.remove(jobKey);
+        jobDefinitionCache.invalidate(jobKey);
     }
 }
@@ -0,0 +1,247 @@
+package com.civism.job.route;
+
+import com.civism.utils.IpLoadRouteUtils;
+import com.civism.utils.MapEndpointRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午6:20
+ * 调度端对每台执行机器的调用中计数
+ * <p>
+ * 和 IpLoadRouteUtils 一样以bean为key、执行机器地址为value计数，同时按地址统计所有bean的总数；
+ * 超过上限的机器调度时会被跳过，调用结束时通过 {@link Permit#release(boolean)} 归还，同时记录响应时间
+ * <p>
+ * 机器从 IpLoadRouteUtils 中全部移除后清除它的计数，机器地址变化不会一直占用内存；
+ * 移除前发出的调用归还到旧的计数上，不影响重新注册后的计数
+ */
+public class InFlightTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(InFlightTracker.class);
+
+    @Resource
+    private EndpointStats endpointStats;
+
+    /**
+     * 每台机器所有bean的调用中上限，小于等于0不限制
+     */
+    private int maxPerEndpoint = 0;
+
+    /**
+     * 每个bean在每台机器上的调用中上限，小于等于0不限制
+     */
+    private int maxPerBeanEndpoint = 0;
+
+    /**
+     * 单独指定上限的bean
+     */
+    private Map<String, Integer> beanLimits = new HashMap<>();
+
+    private final ConcurrentHashMap<String, AtomicInteger> endpointCounts = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicInteger>> beanCounts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        IpLoadRouteUtils.addRemovalListener(new MapEndpointRing.RemovalListener<String>() {
+            @Override
+            public void removed(String address) {
+                remove(address);
+            }
+        });
+    }
+
+    /**
+     * 清除机器的计数
+     */
+    public void remove(String address) {
+        endpointCounts.remove(address);
+        for (ConcurrentHashMap<String, AtomicInteger> counts : beanCounts.values()) {
+            counts.remove(address);
+        }
+    }
+
+    /**
+     * 占用一个调用名额
+     *
+     * @param beanName 执行的bean
+     * @param address  执行机器地址
+     * @return 达到上限时返回null
+     */
+    public Permit tryAcquire(String beanName, String address) {
+        AtomicInteger endpoint = counter(endpointCounts, address);
+        if (!increment(endpoint, maxPerEndpoint)) {
+            return null;
+        }
+        AtomicInteger bean = counter(beanCounter(beanName), address);
+        if (!increment(bean, beanLimit(beanName))) {
+            endpoint.decrementAndGet();
+            return null;
+        }
+        return new Permit(beanName, address, endpoint, bean, endpointStats, endpointCounts);
+    }
+
+    /**
+     * 是否已经达到上限
+     */
+    public boolean isSaturated(String beanName, String address) {
+        if (maxPerEndpoint > 0 && inFlight(address) >= maxPerEndpoint) {
+            return true;
+        }
+        int beanLimit = beanLimit(beanName);
+        return beanLimit > 0 && inFlight(beanName, address) >= beanLimit;
+    }
+
+    /**
+     * 某台机器所有bean的调用中数量
+     */
+    public int inFlight(String address) {
+        AtomicInteger count = endpointCounts.get(address);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 某个bean在某台机器上的调用中数量
+     */
+    public int inFlight(String beanName, String address) {
+        ConcurrentHashMap<String, AtomicInteger> counts = beanCounts.get(beanName);
+        if (counts == null) {
+            return 0;
+        }
+        AtomicInteger count = counts.get(address);
+        return count == null ? 0 : count.get();
+    }
+
+    private int beanLimit(String beanName) {
+        Integer limit = beanLimits.get(beanName);
+        return limit == null ? maxPerBeanEndpoint : limit;
+    }
+
+    private ConcurrentHashMap<String, AtomicInteger> beanCounter(String beanName) {
+        ConcurrentHashMap<String, AtomicInteger> counts = beanCounts.get(beanName);
+        if (counts == null) {
+            ConcurrentHashMap<String, AtomicInteger> newCounts = new ConcurrentHashMap<>();
+            counts = beanCounts.putIfAbsent(beanName, newCounts);
+            if (counts == null) {
+                counts = newCounts;
+            }
+        }
+        return counts;
+    }
+
+    private static AtomicInteger counter(ConcurrentHashMap<String, AtomicInteger> counts, String key) {
+        AtomicInteger count = counts.get(key);
+        if (count == null) {
+            AtomicInteger newCount = new AtomicInteger();
+            count = counts.putIfAbsent(key, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        return count;
+    }
+
+    private static boolean increment(AtomicInteger count, int limit) {
+        if (limit <= 0) {
+            count.incrementAndGet();
+            return true;
+        }
+        for (; ; ) {
+            int current = count.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void setMaxPerEndpoint(int maxPerEndpoint) {
+        this.maxPerEndpoint = maxPerEndpoint;
+    }
+
+    public void setMaxPerBeanEndpoint(int maxPerBeanEndpoint) {
+        this.maxPerBeanEndpoint = maxPerBeanEndpoint;
+    }
+
+    public void setBeanLimits(Map<String, Integer> beanLimits) {
+        this.beanLimits = beanLimits;
+    }
+
+    /**
+     * 一次调用占用的名额，多次归还只生效一次
+     */
+    public static class Permit {
+
+        private final String beanName;
+
+        private final String address;
+
+        private final AtomicInteger endpoint;
+
+        private final AtomicInteger bean;
+
+        private final EndpointStats endpointStats;
+
+        private final ConcurrentHashMap<String, AtomicInteger> endpointCounts;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        Permit(String beanName, String address, AtomicInteger endpoint, AtomicInteger bean, EndpointStats endpointStats,
+               ConcurrentHashMap<String, AtomicInteger> endpointCounts) {
+            this.beanName = beanName;
+            this.address = address;
+            this.endpoint = endpoint;
+            this.bean = bean;
+            this.endpointStats = endpointStats;
+            this.endpointCounts = endpointCounts;
+        }
+
+        /**
+         * 归还名额，不关心结果的调用(ONEWAY)不记录响应时间
+         */
+        public void release() {
+            doRelease();
+        }
+
+        /**
+         * 拿到结果后归还名额，同时记录响应时间和是否失败
+         *
+         * @param failed 调用失败、超时或者被执行端拒绝
+         */
+        public void release(boolean failed) {
+            //计数已经被清除说明机器在调用期间移除了，不再记录它的响应时间
+            if (doRelease() && endpointStats != null && endpointCounts.get(address) == endpoint) {
+                endpointStats.record(beanName, address, System.nanoTime() - startNanos, failed);
+            }
+        }
+
+        private boolean doRelease() {
+            if (released.compareAndSet(false, true)) {
+                endpoint.decrementAndGet();
+                bean.decrementAndGet();
+                return true;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("调用名额重复归还>>>>>>>bean={}, address={}", beanName, address);
+            }
+            return false;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.civism.job.route;
+
+import com.civism.constants.CivismConstants;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author star
+ * @date 2026/10/19 下午2:40
+ * 解码后的任务定义，按 jobKey 缓存，版本号不变时触发不再解码
+ */
+@Service
+public class JobDefinitionCache {
+
+    private final ConcurrentHashMap<JobKey, Definition> definitions = new ConcurrentHashMap<>();
+
+    /**
+     * 本次触发用的任务定义，编码的任务返回缓存的副本，java序列化的旧任务返回 dataMap 中对象的副本
+     * <p>
+     * 内存中调度时 dataMap 在多次触发之间共用，不复制的话上次路由写入的 executeIp 会带到下一次
+     *
+     * @param jobKey  任务key
+     * @param dataMap 任务数据
+     */
+    public CivismJob get(JobKey jobKey, JobDataMap dataMap) {
+        Object data = dataMap.get(CivismConstants.JOB_DEFINITION);
+        if (!(data instanceof byte[])) {
+            CivismJob job = (CivismJob) dataMap.get(CivismConstants.JOB_DETAIL);
+            return job == null ? null : job.copy();
+        }
+        Object version = dataMap.get(CivismConstants.JOB_VERSION);
+        long v = version instanceof Long ? (Long) version : CivismJobCodec.version((byte[]) data);
+        Definition definition = definitions.get(jobKey);
+        if (definition == null || definition.version != v) {
+            definition = new Definition(v, CivismJobCodec.decode((byte[]) data));
+            definitions.put(jobKey, definition);
+        }
+        //路由时会修改 executeIp
+        return definition.job.copy();
+    }
+
+    /**
+     * 任务删除时清除
+     */
+    public void invalidate(JobKey jobKey) {
+        definitions.remove(jobKey);
+    }
+
+    private static class Definition {
+
+        private final long version;
+
+        private final CivismJob job;
+
+        Definition(long version, CivismJob job) {
+            this.version = version;
+            this.job = job;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.civism.job.route;
+
+import com.civism.constants.CivismConstants;
+import com.civism.utils.EndpointRing;
+import com.civism.utils.IpLoadRouteUtils;
+import org.apache.commons.collections.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午6:35
+ * 任务可以调度的执行机器
+ * <p>
+ * 固定IP的任务取 /civism_job/beanName 下连通的机器，自动发现的任务取 beanName 下的机器
+ */
+public class RouteCandidates {
+
+    /**
+     * IpLoadRouteUtils 中的key
+     */
+    public static String routeKey(CivismJob civismJob) {
+        if (civismJob.getJobType() != null && civismJob.getJobType().intValue() == 1) {
+            return CivismConstants.ZK_GUAVA + civismJob.getBeanName();
+        }
+        return civismJob.getBeanName();
+    }
+
+    /**
+     * 是否直接使用任务指定的 targetIps
+     */
+    public static boolean isFixed(CivismJob civismJob) {
+        return civismJob.getJobType() != null && civismJob.getJobType().intValue() == 0 && CollectionUtils.isNotEmpty(civismJob.getTargetIps());
+    }
+
+    public static List<String> list(CivismJob civismJob) {
+        if (isFixed(civismJob)) {
+            return new ArrayList<>(civismJob.getTargetIps());
+        }
+        EndpointRing<String> ring = IpLoadRouteUtils.getRing(routeKey(civismJob));
+        if (ring == null) {
+            return Collections.emptyList();
+        }
+        return ring.snapshot();
+    }
+}
@@ -0,0 +1,34 @@
+package com.civism.job.route;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午4:05
+ * 编译好的任务路由链，按任务缓存
+ * <p>
+ * 链的组成只和jobType、loadWay有关，两者变化时需要重新编译
+ */
+public class RoutePipeline {
+
+    private final int jobType;
+
+    private final int loadWay;
+
+    private final GuavaJobHandler head;
+
+    public RoutePipeline(int jobType, int loadWay, GuavaJobHandler head) {
+        this.jobType = jobType;
+        this.loadWay = loadWay;
+        this.head = head;
+    }
+
+    /**
+     * 任务定义是否和编译时一致
+     */
+    public boolean matches(CivismJob civismJob) {
+        return civismJob.getJobType().intValue() == jobType && civismJob.getLoadWay().intValue() == loadWay;
+    }
+
+    public void execute(CivismJob civismJob) {
+        head.doHandler(civismJob, head);
+    }
+}
@@ -0,0 +1,204 @@
+package com.civism.job.route.callback;
+
+import com.civism.job.constants.FanOutPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午9:50
+ * 一次广播、分片调用的整体结果
+ * <p>
+ * 每台机器的结果到达时计数，成功数达到策略要求时整体成功，剩下的全部成功也达不到要求或者到了截止时间时整体失败；
+ * 整体结果只确定一次，之后到达的结果只计数；整体结果确定时通知 {@link Listener}，
+ * 截止时间到时还在等待结果的机器由 {@link FanOutDispatcher} 结束并记为失败
+ */
+public class FanOut {
+
+    private static final Logger logger = LoggerFactory.getLogger(FanOut.class);
+
+    private final String jobName;
+
+    private final FanOutPolicy policy;
+
+    private final int total;
+
+    private final int required;
+
+    private final AtomicInteger successes = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicBoolean done = new AtomicBoolean(false);
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile boolean success;
+
+    private volatile Future<?> deadline;
+
+    private volatile String reason;
+
+    /**
+     * 还在等待结果的机器，以requestId为key
+     */
+    private final Map<String, GuavaInvokeCallback> pending = new ConcurrentHashMap<>();
+
+    private final Listener listener;
+
+    FanOut(String jobName, FanOutPolicy policy, int total, Listener listener) {
+        this.jobName = jobName;
+        this.policy = policy;
+        this.total = total;
+        this.required = policy.required(total);
+        this.listener = listener;
+        if (total == 0) {
+            finish(false, "no endpoint");
+        }
+    }
+
+    /**
+     * 登记一台已经发出调用的机器，截止时间到时还没有结果的会被结束
+     */
+    void track(GuavaInvokeCallback callback) {
+        pending.put(callback.getRequestId(), callback);
+    }
+
+    /**
+     * 一台已登记机器的结果到达
+     */
+    void arrive(GuavaInvokeCallback callback, boolean ok) {
+        pending.remove(callback.getRequestId(), callback);
+        arrive(ok);
+    }
+
+    /**
+     * 一台机器的结果到达
+     */
+    void arrive(boolean ok) {
+        if (ok) {
+            if (successes.incrementAndGet() >= required) {
+                finish(true, "success");
+            }
+        } else if (total - failures.incrementAndGet() < required) {
+            finish(false, "failure");
+        }
+    }
+
+    void setDeadline(Future<?> deadline) {
+        this.deadline = deadline;
+        if (done.get()) {
+            deadline.cancel(false);
+        }
+    }
+
+    /**
+     * 调用前就确定不执行，整体失败
+     */
+    void reject() {
+        finish(false, "rejected");
+    }
+
+    /**
+     * 截止时间到
+     *
+     * @return 还在等待结果的机器
+     */
+    List<GuavaInvokeCallback> expire() {
+        finish(false, "deadline");
+        return new ArrayList<>(pending.values());
+    }
+
+    private void finish(boolean ok, String reason) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        success = ok;
+        this.reason = reason;
+        Future<?> timer = deadline;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (ok) {
+            logger.info("广播调用完成>>>>>>>job={}, policy={}, success={}/{}, cost={}ms", jobName, policy, successes.get(), total, cost);
+        } else {
+            logger.warn("广播调用失败>>>>>>>job={}, policy={}, reason={}, success={}, failure={}, total={}, cost={}ms", jobName, policy, reason, successes.get(), failures.get(), total, cost);
+        }
+        if (listener != null) {
+            try {
+                listener.finished(this);
+            } catch (Exception e) {
+                logger.error("广播调用结果通知失败>>>>>>>job={}", jobName, e);
+            }
+        }
+        latch.countDown();
+    }
+
+    /**
+     * 等待整体结果
+     *
+     * @return 超时返回false
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return latch.await(timeout, unit);
+    }
+
+    public boolean isDone() {
+        return done.get();
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public int getSuccesses() {
+        return successes.get();
+    }
+
+    public int getFailures() {
+        return failures.get();
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public FanOutPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 整体结果确定的原因：success、failure、deadline、rejected、no endpoint
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * 整体结果的说明，写入汇总记录
+     */
+    public String summary() {
+        return "policy=" + policy + ", reason=" + reason + ", success=" + successes.get() + ", failure=" + failures.get() + ", total=" + total;
+    }
+
+    /**
+     * 整体结果确定时回调，只回调一次
+     */
+    public interface Listener {
+
+        void finished(FanOut fanOut);
+    }
+}
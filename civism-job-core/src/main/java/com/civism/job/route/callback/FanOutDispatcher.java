@@ -0,0 +1,191 @@
+package com.civism.job.route.callback;
+
+import com.alipay.remoting.rpc.RpcClient;
+import com.civism.job.constants.FanOutPolicy;
+import com.civism.job.constants.JobRecordStatus;
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.InFlightTracker;
+import com.civism.job.route.RouteCandidates;
+import com.civism.job.schedule.GuavaJobApplication;
+import com.civism.rpc.RpcRequest;
+import com.civism.rpc.RpcUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author star
+ * @date 2026/10/18 下午10:00
+ * 广播、分片调用
+ * <p>
+ * 对bean的每台机器以callback方式同时发出调用，quartz线程不等待任何一台机器；
+ * 每台机器独立的requestId和记录，结果汇总到 {@link FanOut}，按任务的 fanOutPolicy 判断整体成功，
+ * 超过任务的超时时间还没有确定时整体失败，还没有结果的机器同时结束并记为失败；
+ * 整体结果另写一条汇总记录，执行机器为空，总分片数为机器数
+ * <p>
+ * 分片调用先给每个分片拿到调用名额，机器调用数已满时分片换到还有名额的机器；
+ * 有分片拿不到名额时整个分片调用不执行，记为拒绝，不会只漏掉其中一个分片
+ */
+@Service
+public class FanOutDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(FanOutDispatcher.class);
+
+    @Resource
+    private PendingInvokeRegistry pendingInvokeRegistry;
+
+    @Resource
+    private InFlightTracker inFlightTracker;
+
+    private ScheduledThreadPoolExecutor deadlineTimer;
+
+    @PostConstruct
+    public void init() {
+        deadlineTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("civism-fanout-deadline");
+                return thread;
+            }
+        });
+        //整体结果提前确定时取消的截止任务直接移出队列
+        deadlineTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (deadlineTimer != null) {
+            deadlineTimer.shutdownNow();
+        }
+    }
+
+    /**
+     * 发出广播或分片调用
+     *
+     * @param civismJob 任务定义
+     * @param sharding  true时每台机器带上分片序号和总分片数
+     * @return 整体结果
+     */
+    public FanOut dispatch(CivismJob civismJob, boolean sharding) {
+        List<String> endpoints = new ArrayList<>(RouteCandidates.list(civismJob));
+        FanOutPolicy policy = FanOutPolicy.of(civismJob.getFanOutPolicy());
+        if (endpoints.isEmpty()) {
+            GuavaJobApplication.ruhnnJobDealHandle.saveJobRecord(civismJob, civismJob.newRequest(), null, JobRecordStatus.RECORD_NO_CHANEL);
+            return new FanOut(civismJob.getJobName(), policy, 0, null);
+        }
+        //按地址排序，机器不变时同一台机器拿到的分片序号不变
+        Collections.sort(endpoints);
+        int total = endpoints.size();
+        final RpcRequest summary = civismJob.newRequest();
+        summary.setTotalShare(total);
+        List<InFlightTracker.Permit> permits = null;
+        if (sharding) {
+            permits = acquireShards(civismJob.getBeanName(), endpoints);
+            if (permits == null) {
+                logger.warn("执行机器调用数已满，分片调用不执行>>>>>>>bean={}, total={}", civismJob.getBeanName(), total);
+                GuavaJobApplication.ruhnnJobDealHandle.saveJobRecord(civismJob, summary, null, JobRecordStatus.RECORD_REJECTED);
+                FanOut rejected = new FanOut(civismJob.getJobName(), policy, total, null);
+                rejected.reject();
+                return rejected;
+            }
+        }
+        GuavaJobApplication.ruhnnJobDealHandle.holdJobRecord(civismJob, summary, null);
+        final FanOut fanOut = new FanOut(civismJob.getJobName(), policy, total, new FanOut.Listener() {
+            @Override
+            public void finished(FanOut result) {
+                GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(result.isSuccess() ? JobRecordStatus.RECORD_SUCCESS : JobRecordStatus.RECORD_FAIL, summary.getRequestId(), result.summary());
+            }
+        });
+        Integer timeOut = civismJob.getTimeOut();
+        if (timeOut != null && timeOut > 0) {
+            fanOut.setDeadline(deadlineTimer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    expire(fanOut);
+                }
+            }, timeOut, TimeUnit.MILLISECONDS));
+        }
+        RpcClient client = RpcUtils.getClientInstance();
+        for (int i = 0; i < total; i++) {
+            RpcRequest request = civismJob.newRequest();
+            InFlightTracker.Permit permit;
+            if (sharding) {
+                request.setShareId(i);
+                request.setTotalShare(total);
+                permit = permits.get(i);
+            } else {
+                permit = inFlightTracker.tryAcquire(civismJob.getBeanName(), endpoints.get(i));
+            }
+            String address = permit == null ? endpoints.get(i) : permit.getAddress();
+            if (permit == null) {
+                logger.warn("执行机器调用数已满，未执行>>>>>>>bean={}, address={}, share={}/{}", civismJob.getBeanName(), address, request.getShareId(), request.getTotalShare());
+                GuavaJobApplication.ruhnnJobDealHandle.saveJobRecord(civismJob, request, address, JobRecordStatus.RECORD_REJECTED);
+                fanOut.arrive(false);
+                continue;
+            }
+            GuavaJobApplication.ruhnnJobDealHandle.holdJobRecord(civismJob, request, address);
+            GuavaInvokeCallback callback = pendingInvokeRegistry.register(request.getRequestId(), permit, timeOut, fanOut);
+            fanOut.track(callback);
+            try {
+                client.invokeWithCallback(address, request, civismJob.newInvokeContext(), callback, timeOut);
+            } catch (Exception e) {
+                logger.error("任务调度失败>>>>>>>requestId={}, address={}", request.getRequestId(), address, e);
+                if (pendingInvokeRegistry.complete(callback, true)) {
+                    GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_FAIL, request.getRequestId(), e.getMessage());
+                }
+            }
+        }
+        return fanOut;
+    }
+
+    /**
+     * 给每个分片拿调用名额，分片i先试第i台机器，调用数已满时依次试后面的机器
+     *
+     * @return 下标为分片序号；有分片拿不到名额时归还已拿到的，返回null
+     */
+    private List<InFlightTracker.Permit> acquireShards(String beanName, List<String> endpoints) {
+        int total = endpoints.size();
+        List<InFlightTracker.Permit> permits = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            InFlightTracker.Permit permit = null;
+            for (int j = 0; j < total && permit == null; j++) {
+                permit = inFlightTracker.tryAcquire(beanName, endpoints.get((i + j) % total));
+            }
+            if (permit == null) {
+                for (InFlightTracker.Permit acquired : permits) {
+                    acquired.release();
+                }
+                return null;
+            }
+            if (!permit.getAddress().equals(endpoints.get(i))) {
+                logger.info("执行机器调用数已满，分片换机器执行>>>>>>>bean={}, share={}/{}, from={}, to={}", beanName, i, total, endpoints.get(i), permit.getAddress());
+            }
+            permits.add(permit);
+        }
+        return permits;
+    }
+
+    /**
+     * 截止时间到，整体失败，还在等待的机器结束调用并记为失败，之后到达的结果不再记录
+     */
+    private void expire(FanOut fanOut) {
+        for (GuavaInvokeCallback callback : fanOut.expire()) {
+            if (pendingInvokeRegistry.complete(callback, true)) {
+                logger.warn("广播调用截止时间到，未返回>>>>>>>requestId={}, address={}", callback.getRequestId(), callback.getAddress());
+                GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_FAIL, callback.getRequestId(), "fan-out deadline");
+            }
+        }
+    }
+}
@@ -1,53 +1,85 @@
 package com.civism.job.route.callback;
 
-import com.alibaba.fastjson.JSON;
 import com.alipay.remoting.InvokeCallback;
 import com.civism.job.constants.JobRecordStatus;
+import com.civism.job.route.InFlightTracker;
 import com.civism.job.schedule.GuavaJobApplication;
+import com.civism.rpc.RpcErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Service;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author star
  * @date 2018/8/13 下午4:26
+ * 每次调用一个回调对象，由 PendingInvokeRegistry 创建和登记
  */
-@Service
 public class GuavaInvokeCallback implements InvokeCallback {
 
     private static final Logger logger = LoggerFactory.getLogger(GuavaInvokeCallback.class);
 
-    private String requestId;
+    private final String requestId;
 
-    private ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 20, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>());
+    private final InFlightTracker.Permit permit;
+
+    /**
+     * 超过该时间(System.nanoTime)还没有结果会被清理
+     */
+    private final long deadline;
+
+    private final PendingInvokeRegistry registry;
+
+    /**
+     * 广播、分片调用的整体结果，单台调用时为null
+     */
+    private final FanOut fanOut;
+
+    GuavaInvokeCallback(String requestId, InFlightTracker.Permit permit, long deadline, PendingInvokeRegistry registry, FanOut fanOut) {
+        this.requestId = requestId;
+        this.permit = permit;
+        this.deadline = deadline;
+        this.registry = registry;
+        this.fanOut = fanOut;
+    }
 
     @Override
     public void onResponse(Object o) {
-        GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_SUCCESS, requestId, JSON.toJSONString(o));
+        if (registry.complete(this, o instanceof RpcErrorResponse)) {
+            GuavaJobApplication.ruhnnJobDealHandle.completeJobRecord(requestId, o);
+        }
     }
 
     @Override
     public void onException(Throwable throwable) {
-        GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_FAIL, requestId, throwable.getMessage());
-        logger.error("callback error", throwable);
+        logger.error("callback error>>>>>>>requestId={}, address={}", requestId, permit.getAddress(), throwable);
+        if (registry.complete(this, true)) {
+            GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_FAIL, requestId, throwable.getMessage());
+        }
     }
 
     @Override
     public Executor getExecutor() {
-        logger.warn(">>>>>>>>>>>callback线程池资源,线程池中线程数目{},当前活跃线程数{}个,队列中等待执行的任务数目：{}个", executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size());
-        return executor;
+        return registry.getExecutor();
     }
 
     public String getRequestId() {
         return requestId;
     }
 
-    public void setRequestId(String requestId) {
-        this.requestId = requestId;
+    public String getAddress() {
+        return permit.getAddress();
+    }
+
+    InFlightTracker.Permit getPermit() {
+        return permit;
+    }
+
+    FanOut getFanOut() {
+        return fanOut;
+    }
+
+    long getDeadline() {
+        return deadline;
     }
 }
@@ -0,0 +1,141 @@
+package com.civism.job.route.callback;
+
+import com.civism.job.constants.JobRecordStatus;
+import com.civism.job.route.InFlightTracker;
+import com.civism.job.schedule.GuavaJobApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author star
+ * @date 2026/10/18 上午11:20
+ * 回调调用登记表，以requestId为key
+ * <p>
+ * 每次回调调用都创建自己的回调对象，结果只会被记录一次；
+ * 超过超时时间还没有结果的调用会被定时清理并记为失败
+ */
+@Service
+public class PendingInvokeRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingInvokeRegistry.class);
+
+    /**
+     * 超时之后再多等待的时间，正常情况下bolt会先回调超时异常
+     */
+    private static final long SWEEP_GRACE_MILLIS = 3000;
+
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final ConcurrentHashMap<String, GuavaInvokeCallback> pending = new ConcurrentHashMap<>(1024);
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 20, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<Runnable>());
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("civism-pending-invoke-sweeper");
+                return thread;
+            }
+        });
+        sweeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sweep();
+            }
+        }, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 登记一次回调调用
+     *
+     * @param requestId 请求ID
+     * @param permit    执行机器的调用名额，调用结束时归还
+     * @param timeOut   超时时间，毫秒
+     * @return 本次调用专用的回调对象
+     */
+    public GuavaInvokeCallback register(String requestId, InFlightTracker.Permit permit, Integer timeOut) {
+        return register(requestId, permit, timeOut, null);
+    }
+
+    /**
+     * 登记广播、分片调用中一台机器的回调
+     *
+     * @param fanOut 整体结果，本次调用结束时计数
+     */
+    public GuavaInvokeCallback register(String requestId, InFlightTracker.Permit permit, Integer timeOut, FanOut fanOut) {
+        long wait = (timeOut == null ? 0 : timeOut) + SWEEP_GRACE_MILLIS;
+        GuavaInvokeCallback callback = new GuavaInvokeCallback(requestId, permit, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait), this, fanOut);
+        pending.put(requestId, callback);
+        return callback;
+    }
+
+    /**
+     * 结束一次调用
+     *
+     * @param failed 调用失败、超时或者被执行端拒绝
+     * @return true 表示由本次调用者负责记录结果
+     */
+    public boolean complete(GuavaInvokeCallback callback, boolean failed) {
+        if (pending.remove(callback.getRequestId(), callback)) {
+            callback.getPermit().release(failed);
+            if (callback.getFanOut() != null) {
+                callback.getFanOut().arrive(callback, !failed);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    Executor getExecutor() {
+        if (logger.isDebugEnabled()) {
+            logger.debug(">>>>>>>>>>>callback线程池资源,线程池中线程数目{},当前活跃线程数{}个,队列中等待执行的任务数目：{}个,等待结果的调用{}个", executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size(), pending.size());
+        }
+        return executor;
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (Map.Entry<String, GuavaInvokeCallback> entry : pending.entrySet()) {
+            GuavaInvokeCallback callback = entry.getValue();
+            if (now - callback.getDeadline() >= 0 && complete(callback, true)) {
+                logger.warn("回调调用超时未返回，清理>>>>>>>requestId={}, address={}", callback.getRequestId(), callback.getAddress());
+                try {
+                    GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_FAIL, callback.getRequestId(), "callback timeout");
+                } catch (Exception e) {
+                    logger.error("清理超时回调失败>>>>>>>requestId={}", callback.getRequestId(), e);
+                }
+            }
+        }
+    }
+}
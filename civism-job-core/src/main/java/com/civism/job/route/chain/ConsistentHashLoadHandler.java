@@ -0,0 +1,40 @@
+package com.civism.job.route.chain;
+
+
+import com.alibaba.fastjson.JSON;
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.ConsistentHashRouter;
+import com.civism.job.route.GuavaJobHandler;
+import com.civism.job.route.Handler;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+
+
+/**
+ * @author star
+ * @date 2026/10/18 下午8:40
+ * 一致性hash负载，同一个路由key总是落到同一台机器，机器上下线时只有少部分key换机器
+ * <p>
+ * 路由key优先用 CivismJob.routeKey，没有时用params的json；指定了 targetIps 的自动发现任务只在 targetIps 中选择
+ */
+@Service
+public class ConsistentHashLoadHandler implements Handler {
+
+    @Resource
+    private ConsistentHashRouter consistentHashRouter;
+
+    @Override
+    public void doHandler(CivismJob civismJob, GuavaJobHandler handler) {
+        String key = civismJob.getRouteKey();
+        if (StringUtils.isEmpty(key)) {
+            key = civismJob.getParams() == null ? civismJob.getBeanName() : JSON.toJSONString(civismJob.getParams());
+        }
+        String address = consistentHashRouter.route(civismJob, key);
+        if (StringUtils.isNotEmpty(address)) {
+            civismJob.setExecuteIp(address);
+        }
+        handler.doHandler(civismJob, handler);
+    }
+}
@@ -2,14 +2,18 @@ package com.civism.job.route.chain;
 
 import com.alibaba.fastjson.JSON;
 import com.alipay.remoting.rpc.RpcClient;
-import com.alipay.remoting.rpc.RpcResponseFuture;
 import com.civism.job.constants.JobRecordStatus;
 import com.civism.job.route.CivismJob;
 import com.civism.job.route.GuavaJobHandler;
 import com.civism.job.route.Handler;
+import com.civism.job.route.InFlightTracker;
+import com.civism.job.route.RouteCandidates;
+import com.civism.job.route.callback.FanOutDispatcher;
 import com.civism.job.route.callback.GuavaInvokeCallback;
+import com.civism.job.route.callback.PendingInvokeRegistry;
 import com.civism.job.schedule.GuavaJobApplication;
 import com.civism.rpc.InvokeType;
+import com.civism.rpc.RpcErrorResponse;
 import com.civism.rpc.RpcRequest;
 import com.civism.rpc.RpcUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -18,7 +22,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
-import java.util.UUID;
 
 
 /**
@@ -31,24 +34,45 @@ public class ExecuteJobHandler implements Handler {
     private static final Logger logger = LoggerFactory.getLogger(ExecuteJobHandler.class);
 
     @Resource
-    private GuavaInvokeCallback guavaInvokeCallback;
+    private PendingInvokeRegistry pendingInvokeRegistry;
+
+    @Resource
+    private InFlightTracker inFlightTracker;
+
+    @Resource
+    private FanOutDispatcher fanOutDispatcher;
 
     @Override
     public void doHandler(CivismJob civismJob, GuavaJobHandler handler) {
         try {
-            RpcRequest request = new RpcRequest();
-            request.setRequestId(UUID.randomUUID().toString().replaceAll("-", ""));
-            request.setName(civismJob.getBeanName());
-            request.setMethod(civismJob.getMethod());
-            request.setParams(civismJob.getParams());
-            request.setParamsType(civismJob.getParamsType());
+            //广播、分片的整体结果由 FanOutDispatcher 写入汇总记录，这里不等待
+            if (InvokeType.SHARDING.name().equalsIgnoreCase(civismJob.getInvokeType())) {
+                fanOutDispatcher.dispatch(civismJob, true);
+                return;
+            }
+            if (InvokeType.BROADCAST.name().equalsIgnoreCase(civismJob.getInvokeType())) {
+                fanOutDispatcher.dispatch(civismJob, false);
+                return;
+            }
+            RpcRequest request = civismJob.newRequest();
             if (StringUtils.isEmpty(civismJob.getExecuteIp())) {
                 GuavaJobApplication.ruhnnJobDealHandle.saveJobRecord(civismJob, request, civismJob.getExecuteIp(), JobRecordStatus.RECORD_NO_CHANEL);
                 return;
             }
+            InFlightTracker.Permit permit = acquire(civismJob);
+            if (permit == null) {
+                logger.warn("执行机器调用数已满，没有可用机器>>>>>>>bean={}, address={}", civismJob.getBeanName(), civismJob.getExecuteIp());
+                GuavaJobApplication.ruhnnJobDealHandle.saveJobRecord(civismJob, request, civismJob.getExecuteIp(), JobRecordStatus.RECORD_REJECTED);
+                return;
+            }
 
-            GuavaJobApplication.ruhnnJobDealHandle.saveJobRecord(civismJob, request, civismJob.getExecuteIp(), JobRecordStatus.RECORD_LOADING);
-            callTask(civismJob.getInvokeType(), civismJob.getExecuteIp(), request, civismJob.getTimeOut());
+            if (InvokeType.CALLBACK.name().equalsIgnoreCase(civismJob.getInvokeType())) {
+                GuavaJobApplication.ruhnnJobDealHandle.saveJobRecord(civismJob, request, civismJob.getExecuteIp(), JobRecordStatus.RECORD_LOADING);
+            } else {
+                //ONEWAY、SYNC、FUTURE 结果很快就能拿到，记录先暂存，拿到结果后只写一次
+                GuavaJobApplication.ruhnnJobDealHandle.holdJobRecord(civismJob, request, civismJob.getExecuteIp());
+            }
+            callTask(civismJob, civismJob.getInvokeType(), permit, request, civismJob.getTimeOut());
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -56,8 +80,30 @@ public class ExecuteJobHandler implements Handler {
     }
 
 
-    private void callTask(String invokeType, String address, RpcRequest request, Integer timeOut) {
+    /**
+     * 占用选中机器的调用名额，选中的机器已满时换一台未满的，指定IP执行的任务不换
+     */
+    private InFlightTracker.Permit acquire(CivismJob civismJob) {
+        InFlightTracker.Permit permit = inFlightTracker.tryAcquire(civismJob.getBeanName(), civismJob.getExecuteIp());
+        if (permit != null || StringUtils.isNotBlank(civismJob.getLimitIp())) {
+            return permit;
+        }
+        for (String other : RouteCandidates.list(civismJob)) {
+            if (other.equals(civismJob.getExecuteIp())) {
+                continue;
+            }
+            permit = inFlightTracker.tryAcquire(civismJob.getBeanName(), other);
+            if (permit != null) {
+                civismJob.setExecuteIp(other);
+                return permit;
+            }
+        }
+        return null;
+    }
+
+    private void callTask(CivismJob civismJob, String invokeType, InFlightTracker.Permit permit, RpcRequest request, Integer timeOut) {
         RpcClient client = RpcUtils.getClientInstance();
+        String address = permit.getAddress();
         try {
             if (invokeType.equalsIgnoreCase(InvokeType.ONEWAY.name())) {
                 // 当前线程发起调用后，不关心调用结果，不做超时控制，只要请求已经发出，
@@ -66,7 +112,8 @@ public class ExecuteJobHandler implements Handler {
                 // 导致请求失败。业务场景需要能接受这样的异常场景，才可以使用。
 
                 //oneway 不关心响应，请求线程不会被阻塞，但使用时需要注意控制调用节奏，防止压垮接收方
-                client.oneway(address, request);
+                client.oneway(address, request, civismJob.newInvokeContext());
+                permit.release();
                 GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_SUCCESS, request.getRequestId(), null);
             } else if (invokeType.equalsIgnoreCase(InvokeType.CALLBACK.name())) {
                 // 当前线程发起调用，则本次调用马上结束，可以马上执行下一次调用。
@@ -74,29 +121,90 @@ public class ExecuteJobHandler implements Handler {
                 // 待响应回来后，会在回调的异步线程池，来执行回调逻辑
 
                 //callback 是真正的异步调用，永远不会阻塞线程，结果处理是在异步线程里执行。
-                guavaInvokeCallback.setRequestId(request.getRequestId());
-                client.invokeWithCallback(address, request, guavaInvokeCallback, timeOut);
+                invokeWithCallback(client, civismJob, address, permit, request, timeOut);
             } else if (invokeType.equalsIgnoreCase(InvokeType.FUTURE.name())) {
                 //当前线程发起调用，得到一个 RpcResponseFuture 对象，当前线程可以继续执行下一次调用。
                 // 可以在任意时刻，使用 RpcResponseFuture 对象的 get() 方法来获取结果，如果响应已经回来，此时就马上得到结果；
                 // 如果响应没有回来，则会阻塞住当前线程，直到响应回来，或者超时时间到
 
                 //future 调用，在调用过程不会阻塞线程，但获取结果的过程会阻塞线程；
-                RpcResponseFuture rpcResponseFuture = client.invokeWithFuture(address, request, timeOut);
-                Object o = rpcResponseFuture.get();
-                GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_SUCCESS, request.getRequestId(), JSON.toJSONString(o));
+                //RpcResponseFuture 不能注册完成回调，只能阻塞get或者轮询isDone，
+                //这儿不在quartz线程上get，也不轮询，改用回调拿结果，结果到达时由回调线程记录，记录仍然只写一次
+                invokeWithCallback(client, civismJob, address, permit, request, timeOut);
             } else {
                 //当前线程发起调用后，需要在指定的超时时间内，等到响应结果，才能完成本次调用。
                 // 如果超时时间内没有得到结果，那么会抛出超时异常。这种调用模式最常用。注意要根据对端的处理能力，合理设置超时时间
 
                 //sync 调用会阻塞请求线程，待响应返回后才能进行下一个请求。这是最常用的一种通信模型
-                Object o = client.invokeSync(address, request, timeOut);
-                GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_SUCCESS, request.getRequestId(), JSON.toJSONString(o));
+                Object o;
+                try {
+                    o = client.invokeSync(address, request, civismJob.newInvokeContext(), timeOut);
+                } catch (Exception e) {
+                    permit.release(true);
+                    throw e;
+                }
+                permit.release(o instanceof RpcErrorResponse);
+                if (isRejected(o)) {
+                    o = reroute(client, civismJob, address, request, timeOut, o);
+                }
+                GuavaJobApplication.ruhnnJobDealHandle.completeJobRecord(request.getRequestId(), o);
             }
         } catch (Exception e) {
             logger.error("任务调度失败>>>>>>>request={}", JSON.toJSONString(request));
             e.printStackTrace();
+            permit.release(true);
             GuavaJobApplication.ruhnnJobDealHandle.updateJobRecord(JobRecordStatus.RECORD_FAIL, request.getRequestId(), e.getMessage());
         }
     }
+
+    /**
+     * 每次调用独立的回调对象，并发调用时结果不会串；超时没有结果的由登记表清理
+     */
+    private void invokeWithCallback(RpcClient client, CivismJob civismJob, String address, InFlightTracker.Permit permit, RpcRequest request, Integer timeOut) throws Exception {
+        GuavaInvokeCallback callback = pendingInvokeRegistry.register(request.getRequestId(), permit, timeOut);
+        try {
+            client.invokeWithCallback(address, request, civismJob.newInvokeContext(), callback, timeOut);
+        } catch (Exception e) {
+            pendingInvokeRegistry.complete(callback, true);
+            throw e;
+        }
+    }
+
+    private boolean isRejected(Object o) {
+        return o instanceof RpcErrorResponse && ((RpcErrorResponse) o).isRejected();
+    }
+
+    /**
+     * 执行端线程池满拒绝时，换其他机器各试一次，指定IP执行的任务不换
+     *
+     * @return 最后一次调用的响应
+     */
+    private Object reroute(RpcClient client, CivismJob civismJob, String address, RpcRequest request, Integer timeOut, Object rejected) throws Exception {
+        if (StringUtils.isNotBlank(civismJob.getLimitIp())) {
+            return rejected;
+        }
+        Object o = rejected;
+        for (String other : RouteCandidates.list(civismJob)) {
+            if (other.equals(address)) {
+                continue;
+            }
+            InFlightTracker.Permit permit = inFlightTracker.tryAcquire(civismJob.getBeanName(), other);
+            if (permit == null) {
+                continue;
+            }
+            logger.warn("执行端繁忙，换机器执行>>>>>>>requestId={}, from={}, to={}", request.getRequestId(), address, other);
+            GuavaJobApplication.ruhnnJobDealHandle.rerouteJobRecord(request.getRequestId(), other);
+            try {
+                o = client.invokeSync(other, request, civismJob.newInvokeContext(), timeOut);
+            } catch (Exception e) {
+                permit.release(true);
+                throw e;
+            }
+            permit.release(o instanceof RpcErrorResponse);
+            if (!isRejected(o)) {
+                return o;
+            }
+        }
+        return o;
+    }
 }
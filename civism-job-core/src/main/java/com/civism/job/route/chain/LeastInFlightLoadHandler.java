@@ -0,0 +1,51 @@
+package com.civism.job.route.chain;
+
+
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.GuavaJobHandler;
+import com.civism.job.route.Handler;
+import com.civism.job.route.InFlightTracker;
+import com.civism.job.route.RouteCandidates;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * @author star
+ * @date 2026/10/18 下午6:50
+ * 最少调用中的机器优先，调用中数量相同时从随机位置开始取第一台，避免总落在同一台
+ */
+@Service
+public class LeastInFlightLoadHandler implements Handler {
+
+    @Resource
+    private InFlightTracker inFlightTracker;
+
+    @Override
+    public void doHandler(CivismJob civismJob, GuavaJobHandler handler) {
+        List<String> candidates = RouteCandidates.list(civismJob);
+        int size = candidates.size();
+        if (size > 0) {
+            int start = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+            String best = null;
+            int least = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                String address = candidates.get((start + i) % size);
+                if (inFlightTracker.isSaturated(civismJob.getBeanName(), address)) {
+                    continue;
+                }
+                int inFlight = inFlightTracker.inFlight(civismJob.getBeanName(), address);
+                if (inFlight < least) {
+                    least = inFlight;
+                    best = address;
+                }
+            }
+            //全部已满时仍然选一台，由执行链末端记为拒绝
+            civismJob.setExecuteIp(best == null ? candidates.get(start) : best);
+        }
+        handler.doHandler(civismJob, handler);
+    }
+}
@@ -0,0 +1,60 @@
+package com.civism.job.route.chain;
+
+
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.EndpointStats;
+import com.civism.job.route.GuavaJobHandler;
+import com.civism.job.route.Handler;
+import com.civism.job.route.InFlightTracker;
+import com.civism.job.route.RouteCandidates;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * @author star
+ * @date 2026/10/18 下午7:50
+ * 按响应时间负载，随机取两台机器，选响应时间、失败率、调用中数量综合得分低的一台
+ * <p>
+ * 已满的机器不参与比较
+ */
+@Service
+public class LeastLatencyLoadHandler implements Handler {
+
+    @Resource
+    private EndpointStats endpointStats;
+
+    @Resource
+    private InFlightTracker inFlightTracker;
+
+    @Override
+    public void doHandler(CivismJob civismJob, GuavaJobHandler handler) {
+        List<String> candidates = RouteCandidates.list(civismJob);
+        int size = candidates.size();
+        if (size == 1) {
+            civismJob.setExecuteIp(candidates.get(0));
+        } else if (size > 1) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int i = random.nextInt(size);
+            int j = random.nextInt(size - 1);
+            if (j >= i) {
+                j++;
+            }
+            String a = candidates.get(i);
+            String b = candidates.get(j);
+            civismJob.setExecuteIp(score(civismJob, b) < score(civismJob, a) ? b : a);
+        }
+        handler.doHandler(civismJob, handler);
+    }
+
+    private double score(CivismJob civismJob, String address) {
+        String beanName = civismJob.getBeanName();
+        if (inFlightTracker.isSaturated(beanName, address)) {
+            return Double.MAX_VALUE;
+        }
+        return endpointStats.score(beanName, address, inFlightTracker.inFlight(beanName, address));
+    }
+}
@@ -1,6 +1,8 @@
 package com.civism.job.schedule;
 
+import com.civism.job.quartz.JobDispatchExecutor;
 import com.civism.job.route.HandlerManager;
+import com.civism.job.route.JobDefinitionCache;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -16,10 +18,16 @@ public class GuavaJobApplication implements ApplicationContextAware {
 
     public static GuavaJobDealHandle ruhnnJobDealHandle;
 
+    public static JobDispatchExecutor jobDispatchExecutor;
+
+    public static JobDefinitionCache jobDefinitionCache;
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         handlerManager = applicationContext.getBean(HandlerManager.class);
         ruhnnJobDealHandle = applicationContext.getBean(GuavaJobDealHandle.class);
+        jobDispatchExecutor = applicationContext.getBean(JobDispatchExecutor.class);
+        jobDefinitionCache = applicationContext.getBean(JobDefinitionCache.class);
     }
 
 }
@@ -1,12 +1,13 @@
 package com.civism.job.schedule;
 
 
-import com.civism.dao.JobRecordDao;
+import com.alibaba.fastjson.JSON;
 import com.civism.job.constants.JobRecordStatus;
 import com.civism.job.observer.GuavaJobObserverManage;
 import com.civism.job.observer.MessageSendObserver;
 import com.civism.job.route.CivismJob;
 import com.civism.model.JobRecordDO;
+import com.civism.rpc.RpcErrorResponse;
 import com.civism.rpc.RpcRequest;
 import com.civism.utils.IpUtils;
 import org.springframework.stereotype.Service;
@@ -22,7 +23,7 @@ import java.util.Date;
 public class GuavaJobDealHandle {
 
     @Resource
-    private JobRecordDao jobRecordDao;
+    private JobRecordWriteBehind jobRecordWriteBehind;
 
     @Resource
     private GuavaJobObserverManage guavaJobObserverManage;
@@ -31,31 +32,70 @@ public class GuavaJobDealHandle {
     private MessageSendObserver messageSendObserver;
 
     public void saveJobRecord(CivismJob ruhnnJob, RpcRequest request, String executeIp, JobRecordStatus jobRecordStatus) {
-        JobRecordDO jobRecordDO = new JobRecordDO();
-        jobRecordDO.setJobName(ruhnnJob.getJobName());
-        jobRecordDO.setStatus(jobRecordStatus.getStatus());
-        jobRecordDO.setRequestId(request.getRequestId());
-        jobRecordDO.setStartTime(new Date());
-        jobRecordDO.setJobType(ruhnnJob.getJobType());
-        jobRecordDO.setSendIp(IpUtils.getIpAddress());
-        jobRecordDO.setAcceptIp(executeIp);
-        jobRecordDO.setInvokeType(ruhnnJob.getInvokeType());
-        jobRecordDao.create(jobRecordDO);
+        jobRecordWriteBehind.create(buildJobRecord(ruhnnJob, request, executeIp, jobRecordStatus));
 
         guavaJobObserverManage.registerObserver(messageSendObserver);
 
         guavaJobObserverManage.notifyObserver(jobRecordStatus);
     }
 
+    /**
+     * 调用中的记录先暂存，调用结束后和结果一起写入
+     */
+    public void holdJobRecord(CivismJob ruhnnJob, RpcRequest request, String executeIp) {
+        jobRecordWriteBehind.hold(buildJobRecord(ruhnnJob, request, executeIp, JobRecordStatus.RECORD_LOADING));
+
+        guavaJobObserverManage.registerObserver(messageSendObserver);
+
+        guavaJobObserverManage.notifyObserver(JobRecordStatus.RECORD_LOADING);
+    }
+
     public void updateJobRecord(JobRecordStatus jobRecordStatus, String requestId, String result) {
         JobRecordDO jobRecordDO = new JobRecordDO();
         jobRecordDO.setRequestId(requestId);
         jobRecordDO.setStatus(jobRecordStatus.getStatus());
         jobRecordDO.setResult(result);
         jobRecordDO.setEndTime(new Date());
-        jobRecordDao.update(jobRecordDO);
+        jobRecordWriteBehind.complete(jobRecordDO);
 
         guavaJobObserverManage.registerObserver(messageSendObserver);
         guavaJobObserverManage.notifyObserver(jobRecordStatus);
     }
+
+    /**
+     * 按执行端的响应记录结果，异步执行端的拒绝和异常是以 RpcErrorResponse 返回的
+     */
+    public void completeJobRecord(String requestId, Object response) {
+        if (response instanceof RpcErrorResponse) {
+            RpcErrorResponse error = (RpcErrorResponse) response;
+            updateJobRecord(error.isRejected() ? JobRecordStatus.RECORD_REJECTED : JobRecordStatus.RECORD_FAIL, requestId, error.getMessage());
+            return;
+        }
+        updateJobRecord(JobRecordStatus.RECORD_SUCCESS, requestId, JSON.toJSONString(response));
+    }
+
+    /**
+     * 调用被拒绝后换到另一台机器重新执行，记录的执行机器跟着修改
+     */
+    public void rerouteJobRecord(String requestId, String executeIp) {
+        JobRecordDO jobRecordDO = new JobRecordDO();
+        jobRecordDO.setRequestId(requestId);
+        jobRecordDO.setAcceptIp(executeIp);
+        jobRecordWriteBehind.amend(jobRecordDO);
+    }
+
+    private JobRecordDO buildJobRecord(CivismJob ruhnnJob, RpcRequest request, String executeIp, JobRecordStatus jobRecordStatus) {
+        JobRecordDO jobRecordDO = new JobRecordDO();
+        jobRecordDO.setJobName(ruhnnJob.getJobName());
+        jobRecordDO.setStatus(jobRecordStatus.getStatus());
+        jobRecordDO.setRequestId(request.getRequestId());
+        jobRecordDO.setStartTime(new Date());
+        jobRecordDO.setJobType(ruhnnJob.getJobType());
+        jobRecordDO.setSendIp(IpUtils.getIpAddress());
+        jobRecordDO.setAcceptIp(executeIp);
+        jobRecordDO.setInvokeType(ruhnnJob.getInvokeType());
+        jobRecordDO.setShareId(request.getShareId());
+        jobRecordDO.setTotalShare(request.getTotalShare());
+        return jobRecordDO;
+    }
 }
@@ -0,0 +1,410 @@
+package com.civism.job.schedule;
+
+
+import com.civism.dao.JobRecordDao;
+import com.civism.job.constants.RecordBackpressurePolicy;
+import com.civism.model.JobRecordDO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author star
+ * @date 2026/10/18 上午10:12
+ * tb_job_record 异步批量写入
+ * <p>
+ * 调度线程只把记录放入有界缓冲区，由刷盘线程按批次合并同一个requestId的新增和修改后，
+ * 用多行语句写入数据库
+ * <p>
+ * 结果很快能拿到的调用（ONEWAY、SYNC、FUTURE）可以先把记录暂存在内存里，调用结束后带着最终状态只写入一次；
+ * 超过暂存时间还没有结果的记录会先以调用中状态写入，之后再按requestId修改
+ */
+public class JobRecordWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRecordWriteBehind.class);
+
+    @Resource
+    private JobRecordDao jobRecordDao;
+
+    /**
+     * 缓冲区大小
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 每批次最多写入的记录数
+     */
+    private int flushSize = 200;
+
+    /**
+     * 刷盘间隔，毫秒
+     */
+    private long flushInterval = 200;
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    private RecordBackpressurePolicy backpressurePolicy = RecordBackpressurePolicy.BLOCK;
+
+    /**
+     * 关闭时等待刷盘线程结束的时间，毫秒
+     */
+    private long shutdownTimeout = 10000;
+
+    /**
+     * 记录暂存时间，毫秒，小于等于0时不暂存
+     */
+    private long holdTimeout = 3000;
+
+    private ArrayBlockingQueue<RecordOp> buffer;
+
+    /**
+     * 暂存中还未写入的记录
+     */
+    private final ConcurrentHashMap<String, HeldRecord> heldRecords = new ConcurrentHashMap<>();
+
+    private long lastSweep = System.nanoTime();
+
+    /**
+     * 刷盘锁，保证批次按入队顺序写入
+     */
+    private final Object flushLock = new Object();
+
+    private volatile boolean running = false;
+
+    private Thread flusher;
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        running = true;
+        flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushLoop();
+            }
+        });
+        flusher.setDaemon(true);
+        flusher.setName("civism-job-record-flusher");
+        flusher.start();
+        logger.info(">>>>>>>>>>> job record write-behind start, bufferSize:{}, flushSize:{}, flushInterval:{}, policy:{}", bufferSize, flushSize, flushInterval, backpressurePolicy);
+    }
+
+    /**
+     * 关闭时把缓冲区内剩余的记录全部写入
+     */
+    public void destroy() {
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(shutdownTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+        logger.info(">>>>>>>>>>> job record write-behind stop");
+    }
+
+    public void create(JobRecordDO jobRecordDO) {
+        enqueue(new RecordOp(true, jobRecordDO));
+    }
+
+    public void update(JobRecordDO jobRecordDO) {
+        enqueue(new RecordOp(false, jobRecordDO));
+    }
+
+    /**
+     * 暂存一条调用中的记录，等待调用结果
+     *
+     * @param jobRecordDO 调用中的记录
+     */
+    public void hold(JobRecordDO jobRecordDO) {
+        if (holdTimeout <= 0 || !running) {
+            create(jobRecordDO);
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(holdTimeout);
+        heldRecords.put(jobRecordDO.getRequestId(), new HeldRecord(jobRecordDO, deadline));
+    }
+
+    /**
+     * 调用结束，记录还在暂存中时合并结果后只新增一次，否则按requestId修改
+     *
+     * @param jobRecordDO 调用结果
+     */
+    public void complete(JobRecordDO jobRecordDO) {
+        HeldRecord held = heldRecords.remove(jobRecordDO.getRequestId());
+        if (held == null) {
+            update(jobRecordDO);
+            return;
+        }
+        merge(jobRecordDO, held.record);
+        create(held.record);
+    }
+
+    /**
+     * 调用中修改记录，暂存中的记录直接改，不提前写入
+     *
+     * @param jobRecordDO 需要修改的字段
+     */
+    public void amend(JobRecordDO jobRecordDO) {
+        //先取出再放回，和刷盘线程的超时处理不会同时改同一条记录
+        HeldRecord held = heldRecords.remove(jobRecordDO.getRequestId());
+        if (held == null) {
+            update(jobRecordDO);
+            return;
+        }
+        merge(jobRecordDO, held.record);
+        heldRecords.put(jobRecordDO.getRequestId(), held);
+    }
+
+    private void enqueue(RecordOp op) {
+        if (!running) {
+            //已关闭或者没有启动，连同缓冲区剩余记录直接写入
+            List<RecordOp> ops = new ArrayList<>();
+            synchronized (flushLock) {
+                if (buffer != null) {
+                    buffer.drainTo(ops);
+                }
+                ops.add(op);
+                flush(ops);
+            }
+            return;
+        }
+        if (buffer.offer(op)) {
+            return;
+        }
+        switch (backpressurePolicy) {
+            case CALLER_RUNS:
+                //调用线程自己把缓冲区刷掉，保证同一个requestId的写入顺序
+                List<RecordOp> ops = new ArrayList<>(flushSize);
+                synchronized (flushLock) {
+                    buffer.drainTo(ops);
+                    ops.add(op);
+                    flush(ops);
+                }
+                break;
+            case DISCARD:
+                logger.warn("任务记录缓冲区已满，丢弃记录>>>>>>>requestId={}", op.record.getRequestId());
+                break;
+            case BLOCK:
+            default:
+                try {
+                    buffer.put(op);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("任务记录入队被中断>>>>>>>requestId={}", op.record.getRequestId());
+                }
+                break;
+        }
+    }
+
+    private void flushLoop() {
+        List<RecordOp> batch = new ArrayList<>(flushSize);
+        while (running) {
+            //收集和写入都在刷盘锁内，调用线程刷盘时不会越过已出队但还未写入的记录
+            synchronized (flushLock) {
+                try {
+                    RecordOp first = buffer.poll(flushInterval, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                        while (batch.size() < flushSize) {
+                            buffer.drainTo(batch, flushSize - batch.size());
+                            long remaining = deadline - System.nanoTime();
+                            if (batch.size() >= flushSize || remaining <= 0 || !running) {
+                                break;
+                            }
+                            RecordOp op = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                            if (op != null) {
+                                batch.add(op);
+                            }
+                        }
+                    }
+                    //必须在出队之后处理超时暂存，同一个requestId的修改只会排在这次新增之后
+                    sweepHeld(batch, false);
+                    flush(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    flush(batch);
+                    break;
+                } catch (Exception e) {
+                    logger.error("任务记录刷盘异常", e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * 把超过暂存时间的记录以调用中状态加入批次
+     *
+     * @param batch 当前批次
+     * @param all   true时不管是否超时全部写入
+     */
+    private void sweepHeld(List<RecordOp> batch, boolean all) {
+        long now = System.nanoTime();
+        if (!all && now - lastSweep < TimeUnit.MILLISECONDS.toNanos(flushInterval)) {
+            return;
+        }
+        lastSweep = now;
+        for (Map.Entry<String, HeldRecord> entry : heldRecords.entrySet()) {
+            HeldRecord held = entry.getValue();
+            if ((all || now - held.deadline >= 0) && heldRecords.remove(entry.getKey(), held)) {
+                batch.add(new RecordOp(true, held.record));
+            }
+        }
+    }
+
+    private void drain() {
+        if (buffer == null) {
+            return;
+        }
+        List<RecordOp> ops = new ArrayList<>(flushSize);
+        synchronized (flushLock) {
+            while (buffer.drainTo(ops, flushSize) > 0) {
+                flush(ops);
+                ops.clear();
+            }
+            sweepHeld(ops, true);
+            flush(ops);
+        }
+    }
+
+    /**
+     * 合并同一个requestId的新增和修改，再分别批量写入
+     *
+     * @param ops 按入队顺序排列的写操作
+     */
+    private void flush(List<RecordOp> ops) {
+        if (ops.isEmpty()) {
+            return;
+        }
+        Map<String, JobRecordDO> creates = new LinkedHashMap<>();
+        Map<String, JobRecordDO> updates = new LinkedHashMap<>();
+        for (RecordOp op : ops) {
+            String requestId = op.record.getRequestId();
+            if (op.create) {
+                creates.put(requestId, op.record);
+                continue;
+            }
+            JobRecordDO pending = creates.get(requestId);
+            if (pending == null) {
+                pending = updates.get(requestId);
+            }
+            if (pending == null) {
+                updates.put(requestId, op.record);
+            } else {
+                merge(op.record, pending);
+            }
+        }
+        if (!creates.isEmpty()) {
+            List<JobRecordDO> records = new ArrayList<>(creates.values());
+            try {
+                jobRecordDao.batchCreate(records);
+            } catch (Exception e) {
+                logger.error("批量新增任务记录失败，逐条重试>>>>>>>size={}", records.size(), e);
+                for (JobRecordDO record : records) {
+                    try {
+                        jobRecordDao.create(record);
+                    } catch (Exception ex) {
+                        logger.error("新增任务记录失败>>>>>>>requestId={}", record.getRequestId(), ex);
+                    }
+                }
+            }
+        }
+        if (!updates.isEmpty()) {
+            List<JobRecordDO> records = new ArrayList<>(updates.values());
+            try {
+                jobRecordDao.batchUpdate(records);
+            } catch (Exception e) {
+                logger.error("批量修改任务记录失败，逐条重试>>>>>>>size={}", records.size(), e);
+                for (JobRecordDO record : records) {
+                    try {
+                        jobRecordDao.update(record);
+                    } catch (Exception ex) {
+                        logger.error("修改任务记录失败>>>>>>>requestId={}", record.getRequestId(), ex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 与update语句一致，只覆盖不为空的字段
+     */
+    private void merge(JobRecordDO from, JobRecordDO to) {
+        if (from.getStatus() != null) {
+            to.setStatus(from.getStatus());
+        }
+        if (from.getEndTime() != null) {
+            to.setEndTime(from.getEndTime());
+        }
+        if (from.getResult() != null) {
+            to.setResult(from.getResult());
+        }
+        if (from.getAcceptIp() != null) {
+            to.setAcceptIp(from.getAcceptIp());
+        }
+    }
+
+    public void setJobRecordDao(JobRecordDao jobRecordDao) {
+        this.jobRecordDao = jobRecordDao;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setFlushSize(int flushSize) {
+        this.flushSize = flushSize;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public void setBackpressurePolicy(RecordBackpressurePolicy backpressurePolicy) {
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public void setHoldTimeout(long holdTimeout) {
+        this.holdTimeout = holdTimeout;
+    }
+
+    private static class HeldRecord {
+        private final JobRecordDO record;
+        private final long deadline;
+
+        HeldRecord(JobRecordDO record, long deadline) {
+            this.record = record;
+            this.deadline = deadline;
+        }
+    }
+
+    private static class RecordOp {
+        private final boolean create;
+        private final JobRecordDO record;
+
+        RecordOp(boolean create, JobRecordDO record) {
+            this.create = create;
+            this.record = record;
+        }
+    }
+}
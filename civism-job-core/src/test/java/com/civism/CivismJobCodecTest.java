@@ -0,0 +1,128 @@
+package com.civism;
+
+import com.civism.constants.CivismConstants;
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.CivismJobCodec;
+import org.junit.Test;
+import org.quartz.JobDataMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author star
+ * @date 2026/10/20 下午4:30
+ * 任务紧凑编码的往返，参数json还原后类型或者值变化时保留java序列化
+ */
+public class CivismJobCodecTest {
+
+    @Test
+    public void 所有字段编码后原样还原() {
+        CivismJob job = job(new Class[]{String.class, int.class, Long.class, Date.class},
+                new Object[]{"hello", 3, 4L, new Date(1760000000000L)});
+        job.setJobType(1);
+        job.setTargetIps(new HashSet<>(Arrays.asList("10.0.0.1:8888", "10.0.0.2:8888")));
+        job.setExecuteIp("10.0.0.1:8888");
+        job.setTimeOut(3000);
+        job.setInvokeType("CALLBACK");
+        job.setLoadWay(2);
+        job.setLimitIp("10.0.0.3:8888");
+        job.setRouteKey("key");
+        job.setFanOutPolicy("QUORUM");
+        job.setSerializer("HESSIAN");
+
+        CivismJob decoded = CivismJobCodec.read(compacted(job));
+        assertEquals(job.getBeanName(), decoded.getBeanName());
+        assertEquals(job.getMethod(), decoded.getMethod());
+        assertEquals(job.getJobType(), decoded.getJobType());
+        assertEquals(job.getTargetIps(), decoded.getTargetIps());
+        assertEquals(job.getExecuteIp(), decoded.getExecuteIp());
+        assertEquals(job.getTimeOut(), decoded.getTimeOut());
+        assertEquals(job.getInvokeType(), decoded.getInvokeType());
+        assertEquals(job.getLoadWay(), decoded.getLoadWay());
+        assertEquals(job.getLimitIp(), decoded.getLimitIp());
+        assertEquals(job.getRouteKey(), decoded.getRouteKey());
+        assertEquals(job.getFanOutPolicy(), decoded.getFanOutPolicy());
+        assertEquals(job.getSerializer(), decoded.getSerializer());
+        assertArrayEquals(job.getParamsType(), decoded.getParamsType());
+        assertArrayEquals(job.getParams(), decoded.getParams());
+        assertEquals(Date.class, decoded.getParams()[3].getClass());
+    }
+
+    @Test
+    public void 没有参数时编码() {
+        CivismJob decoded = CivismJobCodec.read(compacted(job(null, null)));
+        assertNull(decoded.getParamsType());
+        assertNull(decoded.getParams());
+    }
+
+    @Test
+    public void 没有参数类型的字符串参数编码() {
+        CivismJob decoded = CivismJobCodec.read(compacted(job(null, new Object[]{"a", "b"})));
+        assertArrayEquals(new Object[]{"a", "b"}, decoded.getParams());
+    }
+
+    @Test
+    public void 没有参数类型时数字类型变化保留java序列化() {
+        assertKeepsJavaSerialization(job(null, new Object[]{5L}));
+    }
+
+    @Test
+    public void Object类型的日期保留java序列化() {
+        assertKeepsJavaSerialization(job(new Class[]{Object.class}, new Object[]{new Date()}));
+    }
+
+    @Test
+    public void 接口类型的参数保留java序列化() {
+        //按接口还原成 ArrayList，元素按json还原成 Integer
+        assertKeepsJavaSerialization(job(new Class[]{List.class}, new Object[]{new LinkedList<>(Collections.singletonList(1))}));
+        assertKeepsJavaSerialization(job(new Class[]{List.class}, new Object[]{new ArrayList<>(Collections.singletonList(1L))}));
+    }
+
+    @Test
+    public void 数组参数按值比较() {
+        CivismJob job = job(new Class[]{int[].class}, new Object[]{new int[]{1, 2, 3}});
+        CivismJob decoded = CivismJobCodec.read(compacted(job));
+        assertArrayEquals(new int[]{1, 2, 3}, (int[]) decoded.getParams()[0]);
+    }
+
+    private static void assertKeepsJavaSerialization(CivismJob job) {
+        JobDataMap dataMap = dataMap(job);
+        JobDataMap compacted = CivismJobCodec.compact(dataMap);
+        assertSame(dataMap, compacted);
+        assertSame(job, CivismJobCodec.read(compacted));
+    }
+
+    private static JobDataMap compacted(CivismJob job) {
+        JobDataMap compacted = CivismJobCodec.compact(dataMap(job));
+        assertTrue(compacted.get(CivismConstants.JOB_DEFINITION) instanceof byte[]);
+        assertNull(compacted.get(CivismConstants.JOB_DETAIL));
+        return compacted;
+    }
+
+    private static JobDataMap dataMap(CivismJob job) {
+        JobDataMap dataMap = new JobDataMap();
+        dataMap.put(CivismConstants.JOB_DETAIL, job);
+        return dataMap;
+    }
+
+    private static CivismJob job(Class[] paramsType, Object[] params) {
+        CivismJob job = new CivismJob();
+        job.setBeanName("com.civism.test.CodecBean");
+        job.setMethod("run");
+        job.setParamsType(paramsType);
+        job.setParams(params);
+        return job;
+    }
+}
@@ -0,0 +1,140 @@
+package com.civism;
+
+import com.civism.job.route.CivismJob;
+import com.civism.job.route.ConsistentHashRouter;
+import com.civism.utils.IpLoadRouteUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author star
+ * @date 2026/10/20 下午3:20
+ * 一致性hash路由：同一个key稳定落在同一台机器，机器增减时只有归属变化的key换机器
+ */
+public class ConsistentHashRouterTest {
+
+    private static final String BEAN = "com.civism.test.ConsistentHashBean";
+
+    private static final int KEYS = 20000;
+
+    private final ConsistentHashRouter router = new ConsistentHashRouter();
+
+    @After
+    public void tearDown() {
+        IpLoadRouteUtils.removeAll(BEAN);
+    }
+
+    @Test
+    public void 同一个key稳定路由到同一台机器() {
+        online("10.0.0.1:8888", "10.0.0.2:8888", "10.0.0.3:8888");
+        Map<String, String> first = routeAll();
+        assertEquals(first, routeAll());
+
+        //另一个路由器实例看到相同的机器时结果一致
+        ConsistentHashRouter other = new ConsistentHashRouter();
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(first.get("key" + i), other.route(BEAN, "key" + i));
+        }
+    }
+
+    @Test
+    public void 增加机器只有移到新机器的key变化() {
+        online("10.0.0.1:8888", "10.0.0.2:8888", "10.0.0.3:8888", "10.0.0.4:8888");
+        Map<String, String> before = routeAll();
+        online("10.0.0.5:8888");
+        Map<String, String> after = routeAll();
+
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String now = after.get(entry.getKey());
+            if (!now.equals(entry.getValue())) {
+                assertEquals("10.0.0.5:8888", now);
+                moved++;
+            }
+        }
+        //理想情况是 1/5，虚拟节点有偏差
+        double ratio = (double) moved / KEYS;
+        assertTrue("moved ratio " + ratio, ratio > 0.12 && ratio < 0.28);
+    }
+
+    @Test
+    public void 删除机器只有原来在该机器上的key变化() {
+        online("10.0.0.1:8888", "10.0.0.2:8888", "10.0.0.3:8888", "10.0.0.4:8888");
+        Map<String, String> before = routeAll();
+        offline("10.0.0.2:8888");
+        Map<String, String> after = routeAll();
+
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String now = after.get(entry.getKey());
+            if (entry.getValue().equals("10.0.0.2:8888")) {
+                assertTrue(!now.equals("10.0.0.2:8888"));
+            } else {
+                assertEquals(entry.getValue(), now);
+            }
+        }
+    }
+
+    @Test
+    public void 连接断开不经过监听时查找时对齐() {
+        online("10.0.0.1:8888", "10.0.0.2:8888");
+        IpLoadRouteUtils.remove(BEAN, "10.0.0.1:8888");
+        for (int i = 0; i < 100; i++) {
+            assertEquals("10.0.0.2:8888", router.route(BEAN, "key" + i));
+        }
+        IpLoadRouteUtils.remove(BEAN, "10.0.0.2:8888");
+        assertNull(router.route(BEAN, "key"));
+    }
+
+    @Test
+    public void 指定targetIps时只在targetIps中选择() {
+        online("10.0.0.1:8888", "10.0.0.2:8888", "10.0.0.3:8888");
+        CivismJob civismJob = new CivismJob();
+        civismJob.setBeanName(BEAN);
+        civismJob.setJobType(0);
+        civismJob.setTargetIps(new HashSet<>(Arrays.asList("10.0.0.8:8888", "10.0.0.9:8888")));
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            String address = router.route(civismJob, "key" + i);
+            assertNotNull(address);
+            assertTrue(address, civismJob.getTargetIps().contains(address));
+            assertEquals(address, router.route(civismJob, "key" + i));
+            Integer count = counts.get(address);
+            counts.put(address, count == null ? 1 : count + 1);
+        }
+        assertEquals(2, counts.size());
+
+        //没有指定时走注册的机器
+        civismJob.setTargetIps(null);
+        assertTrue(IpLoadRouteUtils.getValues(BEAN).contains(router.route(civismJob, "key")));
+    }
+
+    private void online(String... addresses) {
+        for (String address : addresses) {
+            IpLoadRouteUtils.put(BEAN, address);
+            router.add(BEAN, address);
+        }
+    }
+
+    private void offline(String address) {
+        IpLoadRouteUtils.remove(BEAN, address);
+        router.remove(BEAN, address);
+    }
+
+    private Map<String, String> routeAll() {
+        Map<String, String> owners = new HashMap<>(KEYS * 2);
+        for (int i = 0; i < KEYS; i++) {
+            owners.put("key" + i, router.route(BEAN, "key" + i));
+        }
+        return owners;
+    }
+}
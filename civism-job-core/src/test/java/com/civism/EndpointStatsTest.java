@@ -0,0 +1,66 @@
+package com.civism;
+
+import com.civism.job.route.EndpointStats;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author star
+ * @date 2026/10/21 上午10:10
+ * 失败的调用只计入失败率，快速失败的机器得分不能比正常但慢的机器低
+ */
+public class EndpointStatsTest {
+
+    private static final String BEAN = "com.civism.test.StatsBean";
+
+    private static final String FAILING = "10.0.0.1:8888";
+
+    private static final String SLOW = "10.0.0.2:8888";
+
+    private final EndpointStats stats = new EndpointStats();
+
+    @Test
+    public void 快速失败的机器得分高于慢但成功的机器() {
+        for (int i = 0; i < 20; i++) {
+            stats.record(BEAN, FAILING, millis(1), true);
+            stats.record(BEAN, SLOW, millis(50), false);
+        }
+        assertTrue(stats.score(BEAN, FAILING, 0) > stats.score(BEAN, SLOW, 0));
+        //调用中的数量相同时仍然如此
+        assertTrue(stats.score(BEAN, FAILING, 3) > stats.score(BEAN, SLOW, 3));
+        assertTrue(stats.errorRate(BEAN, FAILING) > 0.9);
+        assertEquals(0, stats.errorRate(BEAN, SLOW), 1e-9);
+    }
+
+    @Test
+    public void 失败不拉低平均响应时间() {
+        stats.record(BEAN, FAILING, millis(40), false);
+        for (int i = 0; i < 20; i++) {
+            stats.record(BEAN, FAILING, millis(1), true);
+        }
+        assertEquals(40, stats.latencyMillis(BEAN, FAILING), 0.01);
+    }
+
+    @Test
+    public void 偶尔失败的机器仍然优于一直失败的机器() {
+        for (int i = 0; i < 20; i++) {
+            stats.record(BEAN, FAILING, millis(1), true);
+            stats.record(BEAN, SLOW, millis(50), i % 10 == 0);
+        }
+        assertTrue(stats.score(BEAN, FAILING, 0) > stats.score(BEAN, SLOW, 0));
+    }
+
+    @Test
+    public void 没有数据的机器得分为0() {
+        assertEquals(0, stats.score(BEAN, SLOW, 5), 1e-9);
+        assertEquals(-1, stats.latencyMillis(BEAN, SLOW), 1e-9);
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
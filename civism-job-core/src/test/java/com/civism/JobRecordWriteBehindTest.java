@@ -0,0 +1,320 @@
+package com.civism;
+
+import com.civism.dao.JobRecordDao;
+import com.civism.job.constants.RecordBackpressurePolicy;
+import com.civism.job.schedule.JobRecordWriteBehind;
+import com.civism.model.JobRecordDO;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author star
+ * @date 2026/10/20 下午2:10
+ * 调用记录异步写入的合并、暂存和缓冲区满时的策略，数据库用内存桩代替
+ */
+public class JobRecordWriteBehindTest {
+
+    private static final int LOADING = 1;
+
+    private static final int SUCCESS = 2;
+
+    private final StubJobRecordDao dao = new StubJobRecordDao();
+
+    private JobRecordWriteBehind writeBehind;
+
+    @After
+    public void tearDown() {
+        dao.release();
+        if (writeBehind != null) {
+            writeBehind.destroy();
+        }
+    }
+
+    @Test
+    public void 未启动时直接写入() {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.BLOCK, 16, 0);
+        writeBehind.create(record("r1", LOADING));
+        assertEquals(1, dao.creates.size());
+        assertEquals("r1", dao.creates.get(0).getRequestId());
+    }
+
+    @Test
+    public void 同一批次的修改合并到新增() {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.BLOCK, 16, 0);
+        writeBehind.setFlushInterval(500);
+        writeBehind.start();
+        writeBehind.create(record("r1", LOADING));
+        JobRecordDO update = new JobRecordDO();
+        update.setRequestId("r1");
+        update.setStatus(SUCCESS);
+        update.setResult("ok");
+        writeBehind.update(update);
+        writeBehind.destroy();
+
+        assertEquals(1, dao.creates.size());
+        assertEquals(Integer.valueOf(SUCCESS), dao.creates.get(0).getStatus());
+        assertEquals("ok", dao.creates.get(0).getResult());
+        assertTrue(dao.updates.isEmpty());
+    }
+
+    @Test
+    public void 暂存的记录调用结束后只写入一次() {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.BLOCK, 16, 3000);
+        writeBehind.start();
+        writeBehind.hold(record("r1", LOADING));
+        JobRecordDO amend = new JobRecordDO();
+        amend.setRequestId("r1");
+        amend.setAcceptIp("10.0.0.1:8888");
+        writeBehind.amend(amend);
+        writeBehind.complete(record("r1", SUCCESS));
+        writeBehind.destroy();
+
+        assertEquals(1, dao.creates.size());
+        JobRecordDO written = dao.creates.get(0);
+        assertEquals(Integer.valueOf(SUCCESS), written.getStatus());
+        assertEquals("10.0.0.1:8888", written.getAcceptIp());
+        assertTrue(dao.updates.isEmpty());
+    }
+
+    @Test
+    public void 暂存超时先写入调用中状态之后再修改() throws InterruptedException {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.BLOCK, 16, 50);
+        writeBehind.setFlushInterval(20);
+        writeBehind.start();
+        writeBehind.hold(record("r1", LOADING));
+        assertTrue(dao.awaitCreates(1, 2000));
+        assertEquals(Integer.valueOf(LOADING), dao.creates.get(0).getStatus());
+
+        writeBehind.complete(record("r1", SUCCESS));
+        writeBehind.destroy();
+        assertEquals(1, dao.creates.size());
+        assertEquals(1, dao.updates.size());
+        assertEquals(Integer.valueOf(SUCCESS), dao.updates.get(0).getStatus());
+    }
+
+    @Test
+    public void 关闭时写入缓冲区和暂存中的记录() {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.BLOCK, 16, 60000);
+        writeBehind.setFlushInterval(1000);
+        writeBehind.start();
+        writeBehind.hold(record("held", LOADING));
+        writeBehind.create(record("r1", LOADING));
+        writeBehind.destroy();
+
+        assertEquals(2, dao.creates.size());
+        assertTrue(dao.createdIds().contains("held"));
+        assertTrue(dao.createdIds().contains("r1"));
+    }
+
+    @Test
+    public void 批量写入失败时逐条重试() {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.BLOCK, 16, 0);
+        dao.failBatch = true;
+        writeBehind.start();
+        writeBehind.create(record("r1", LOADING));
+        writeBehind.create(record("r2", LOADING));
+        writeBehind.destroy();
+
+        assertEquals(2, dao.creates.size());
+    }
+
+    @Test
+    public void 缓冲区满时丢弃() throws InterruptedException {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.DISCARD, 1, 0);
+        fillBuffer();
+        writeBehind.create(record("r3", LOADING));
+        dao.release();
+        writeBehind.destroy();
+
+        assertEquals(2, dao.creates.size());
+        assertFalse(dao.createdIds().contains("r3"));
+    }
+
+    @Test
+    public void 缓冲区满时调用线程刷盘() throws InterruptedException {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.CALLER_RUNS, 1, 0);
+        fillBuffer();
+        Thread caller = enqueueAsync("r3");
+        //调用线程发现缓冲区已满，在等刷盘线程释放刷盘锁
+        awaitBlocked(caller);
+        dao.release();
+        caller.join(2000);
+        writeBehind.destroy();
+
+        assertEquals(3, dao.creates.size());
+        assertEquals("r2", dao.creates.get(1).getRequestId());
+        assertEquals("r3", dao.creates.get(2).getRequestId());
+        assertEquals(caller.getName(), dao.threads.get(2));
+    }
+
+    @Test
+    public void 缓冲区满时阻塞等待() throws InterruptedException {
+        writeBehind = newWriteBehind(RecordBackpressurePolicy.BLOCK, 1, 0);
+        fillBuffer();
+        Thread caller = enqueueAsync("r3");
+        caller.join(200);
+        assertTrue(caller.isAlive());
+        dao.release();
+        caller.join(2000);
+        assertFalse(caller.isAlive());
+        writeBehind.destroy();
+
+        assertEquals(3, dao.creates.size());
+        assertEquals("r3", dao.creates.get(2).getRequestId());
+        assertNotEquals(caller.getName(), dao.threads.get(2));
+    }
+
+    /**
+     * r1 被刷盘线程取走并卡在数据库里，r2 占满缓冲区
+     */
+    private void fillBuffer() throws InterruptedException {
+        dao.block();
+        writeBehind.start();
+        writeBehind.create(record("r1", LOADING));
+        assertTrue(dao.entered.await(2, TimeUnit.SECONDS));
+        writeBehind.create(record("r2", LOADING));
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (thread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Thread.State.BLOCKED, thread.getState());
+    }
+
+    private Thread enqueueAsync(final String requestId) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeBehind.create(record(requestId, LOADING));
+            }
+        }, "record-caller");
+        thread.start();
+        return thread;
+    }
+
+    private JobRecordWriteBehind newWriteBehind(RecordBackpressurePolicy policy, int bufferSize, long holdTimeout) {
+        JobRecordWriteBehind writeBehind = new JobRecordWriteBehind();
+        writeBehind.setJobRecordDao(dao);
+        writeBehind.setBackpressurePolicy(policy);
+        writeBehind.setBufferSize(bufferSize);
+        writeBehind.setFlushSize(100);
+        writeBehind.setFlushInterval(50);
+        writeBehind.setHoldTimeout(holdTimeout);
+        writeBehind.setShutdownTimeout(2000);
+        return writeBehind;
+    }
+
+    private static JobRecordDO record(String requestId, int status) {
+        JobRecordDO record = new JobRecordDO();
+        record.setRequestId(requestId);
+        record.setStatus(status);
+        return record;
+    }
+
+    private static class StubJobRecordDao implements JobRecordDao {
+
+        private final List<JobRecordDO> creates = new ArrayList<>();
+
+        private final List<JobRecordDO> updates = new ArrayList<>();
+
+        /**
+         * 每条新增记录的写入线程
+         */
+        private final List<String> threads = new ArrayList<>();
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        private volatile CountDownLatch gate;
+
+        private volatile boolean failBatch;
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            CountDownLatch current = gate;
+            if (current != null) {
+                current.countDown();
+            }
+        }
+
+        boolean awaitCreates(int count, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (System.currentTimeMillis() < deadline) {
+                synchronized (this) {
+                    if (creates.size() >= count) {
+                        return true;
+                    }
+                }
+                Thread.sleep(10);
+            }
+            return false;
+        }
+
+        synchronized List<String> createdIds() {
+            List<String> ids = new ArrayList<>();
+            for (JobRecordDO record : creates) {
+                ids.add(record.getRequestId());
+            }
+            return ids;
+        }
+
+        @Override
+        public synchronized Boolean create(JobRecordDO jobRecordDO) {
+            creates.add(jobRecordDO);
+            threads.add(Thread.currentThread().getName());
+            return true;
+        }
+
+        @Override
+        public synchronized Boolean update(JobRecordDO jobRecordDO) {
+            updates.add(jobRecordDO);
+            return true;
+        }
+
+        @Override
+        public Boolean batchCreate(List<JobRecordDO> jobRecords) {
+            entered.countDown();
+            CountDownLatch current = gate;
+            if (current != null) {
+                try {
+                    current.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failBatch) {
+                throw new IllegalStateException("batch fail");
+            }
+            synchronized (this) {
+                for (JobRecordDO record : jobRecords) {
+                    creates.add(record);
+                    threads.add(Thread.currentThread().getName());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized Boolean batchUpdate(List<JobRecordDO> jobRecords) {
+            if (failBatch) {
+                throw new IllegalStateException("batch fail");
+            }
+            updates.addAll(jobRecords);
+            return true;
+        }
+    }
+}
@@ -8,9 +8,13 @@ import com.civism.job.route.CivismJob;
 import com.civism.rpc.InvokeType;
 import org.junit.Test;
 import org.quartz.JobDataMap;
+import org.quartz.JobKey;
 import org.quartz.SchedulerException;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author star
@@ -56,6 +60,49 @@ public class TaskJobTest extends BaseTest {
         scheduleFactory.addJob(ruhnnJobDetail);
     }
 
+    @Test
+    public void 添加临时任务() throws SchedulerException {
+        CivismJob civismJob = new CivismJob();
+        civismJob.setBeanName("com.ruhnn.service.impl.HelloWordServiceImpl");
+        civismJob.setMethod("sayHello");
+        civismJob.setTimeOut(3000);
+        civismJob.setJobType(0);
+        civismJob.setInvokeType(InvokeType.ONEWAY.name());
+        CivismJobDetail ruhnnJobDetail = new CivismJobDetail();
+        ruhnnJobDetail.setTaskName("com.ruhnn.service.impl.HelloWordServiceImpl:sayHello");
+        ruhnnJobDetail.setGroupName("guava_ephemeral");
+        ruhnnJobDetail.setCron("0/1 * * * * ?");
+        //不落库，由leader节点在内存中调度
+        ruhnnJobDetail.setEphemeral(true);
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put(CivismConstants.JOB_DETAIL, civismJob);
+        ruhnnJobDetail.setDataMap(jobDataMap);
+        scheduleFactory.addJob(ruhnnJobDetail);
+    }
+
+    @Test
+    public void 批量添加任务() throws SchedulerException {
+        List<CivismJobDetail> jobDetails = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            CivismJob civismJob = new CivismJob();
+            civismJob.setBeanName("com.ruhnn.service.impl.HelloWordServiceImpl");
+            civismJob.setMethod("sayHello");
+            civismJob.setTimeOut(3000);
+            civismJob.setJobType(0);
+            civismJob.setInvokeType(InvokeType.ONEWAY.name());
+            CivismJobDetail ruhnnJobDetail = new CivismJobDetail();
+            ruhnnJobDetail.setTaskName("com.ruhnn.service.impl.HelloWordServiceImpl:sayHello:" + i);
+            ruhnnJobDetail.setGroupName("guava_batch");
+            ruhnnJobDetail.setCron("0 0/5 * * * ?");
+            JobDataMap jobDataMap = new JobDataMap();
+            jobDataMap.put(CivismConstants.JOB_DETAIL, civismJob);
+            ruhnnJobDetail.setDataMap(jobDataMap);
+            jobDetails.add(ruhnnJobDetail);
+        }
+        Map<JobKey, Boolean> result = scheduleFactory.addJobs(jobDetails, false);
+        System.out.println(result);
+        System.out.println(scheduleFactory.pauseGroup("guava_batch"));
+    }
 
     @Test
     public void 删除quartz任务() throws SchedulerException {
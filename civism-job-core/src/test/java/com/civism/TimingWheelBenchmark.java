@@ -0,0 +1,153 @@
+package com.civism;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.civism.job.quartz.TimingWheelTriggerEngine;
+import com.civism.job.route.CivismJob;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.utils.ConnectionProvider;
+import org.quartz.utils.DBConnectionManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author star
+ * @date 2026/10/19 上午11:20
+ * 时间轮和quartz的触发能力对比，N个每秒触发一次的任务，统计稳定后每秒实际触发数
+ * <p>
+ * 只测本地触发引擎，不含 EphemeralJobScheduler 从zookeeper加载任务定义的过程
+ * <p>
+ * 运行：java -Dbench.jobs=100000 -Dbench.seconds=20 com.civism.TimingWheelBenchmark
+ * 指定 -Dbench.jdbc.url -Dbench.jdbc.user -Dbench.jdbc.password 时同时测试 JDBC 存储(需要建好 QRTZ_ 表，测试会清空表)
+ */
+public class TimingWheelBenchmark {
+
+    private static final String CRON = "* * * * * ?";
+
+    private static final AtomicLong QUARTZ_FIRED = new AtomicLong();
+
+    public static class CountJob implements Job {
+        @Override
+        public void execute(JobExecutionContext context) {
+            QUARTZ_FIRED.incrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int jobs = Integer.getInteger("bench.jobs", 100000);
+        int seconds = Integer.getInteger("bench.seconds", 20);
+        int threads = Integer.getInteger("bench.threads", 10);
+        System.out.println("jobs=" + jobs + ", seconds=" + seconds + ", threads=" + threads);
+
+        wheel(jobs, seconds, threads);
+        quartz("RAMJobStore", ramProperties(threads), jobs, seconds);
+        String url = System.getProperty("bench.jdbc.url");
+        if (url != null) {
+            quartz("JobStoreTX", jdbcProperties(threads, url), jobs, seconds);
+        }
+    }
+
+    private static void wheel(int jobs, int seconds, int threads) throws Exception {
+        final AtomicLong fired = new AtomicLong();
+        TimingWheelTriggerEngine engine = new TimingWheelTriggerEngine(100, threads, new TimingWheelTriggerEngine.Firer() {
+            @Override
+            public void fire(JobKey jobKey, CivismJob civismJob) {
+                fired.incrementAndGet();
+            }
+        });
+        engine.start();
+        CivismJob civismJob = new CivismJob();
+        civismJob.setBeanName("bench");
+        civismJob.setMethod("run");
+        long begin = System.nanoTime();
+        for (int i = 0; i < jobs; i++) {
+            engine.schedule(JobKey.jobKey("job" + i, "bench"), CRON, civismJob, false);
+        }
+        System.out.println("wheel schedule cost " + (System.nanoTime() - begin) / 1000000 + "ms");
+        report("wheel", fired, jobs, seconds);
+        System.out.println("wheel skipped=" + engine.getSkipped() + ", maxLag=" + engine.getMaxLagMillis() + "ms");
+        engine.shutdown();
+    }
+
+    private static void quartz(String name, Properties properties, int jobs, int seconds) throws Exception {
+        Scheduler scheduler = new StdSchedulerFactory(properties).getScheduler();
+        scheduler.clear();
+        long begin = System.nanoTime();
+        for (int i = 0; i < jobs; i++) {
+            scheduler.scheduleJob(JobBuilder.newJob(CountJob.class).withIdentity("job" + i, "bench").build(),
+                    TriggerBuilder.newTrigger().withIdentity("job" + i, "bench")
+                            .withSchedule(CronScheduleBuilder.cronSchedule(CRON).withMisfireHandlingInstructionDoNothing()).build());
+        }
+        System.out.println(name + " schedule cost " + (System.nanoTime() - begin) / 1000000 + "ms");
+        QUARTZ_FIRED.set(0);
+        scheduler.start();
+        report(name, QUARTZ_FIRED, jobs, seconds);
+        scheduler.clear();
+        scheduler.shutdown(true);
+    }
+
+    /**
+     * 前几秒预热，之后统计每秒触发数
+     */
+    private static void report(String name, AtomicLong fired, int jobs, int seconds) throws InterruptedException {
+        int warmup = Math.min(5, seconds / 4);
+        Thread.sleep(warmup * 1000L);
+        long from = fired.get();
+        long begin = System.nanoTime();
+        Thread.sleep((seconds - warmup) * 1000L);
+        long count = fired.get() - from;
+        double rate = count * 1e9 / (System.nanoTime() - begin);
+        System.out.printf("%s fires/s=%.0f, expected=%d, ratio=%.2f%n", name, rate, jobs, rate / jobs);
+    }
+
+    private static Properties ramProperties(int threads) {
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", "benchRam");
+        properties.setProperty("org.quartz.scheduler.skipUpdateCheck", "true");
+        properties.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        properties.setProperty("org.quartz.threadPool.threadCount", String.valueOf(threads));
+        properties.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
+        properties.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", String.valueOf(threads));
+        return properties;
+    }
+
+    private static Properties jdbcProperties(int threads, String url) {
+        final DruidDataSource dataSource = new DruidDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUsername(System.getProperty("bench.jdbc.user"));
+        dataSource.setPassword(System.getProperty("bench.jdbc.password"));
+        dataSource.setMaxActive(threads + 5);
+        DBConnectionManager.getInstance().addConnectionProvider("bench", new ConnectionProvider() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return dataSource.getConnection();
+            }
+
+            @Override
+            public void shutdown() {
+                dataSource.close();
+            }
+
+            @Override
+            public void initialize() {
+            }
+        });
+        Properties properties = ramProperties(threads);
+        properties.setProperty("org.quartz.scheduler.instanceName", "benchJdbc");
+        properties.setProperty("org.quartz.jobStore.class", "org.quartz.impl.jdbcjobstore.JobStoreTX");
+        properties.setProperty("org.quartz.jobStore.driverDelegateClass", "org.quartz.impl.jdbcjobstore.StdJDBCDelegate");
+        properties.setProperty("org.quartz.jobStore.tablePrefix", "QRTZ_");
+        properties.setProperty("org.quartz.jobStore.dataSource", "bench");
+        properties.setProperty("org.quartz.jobStore.isClustered", "true");
+        return properties;
+    }
+}
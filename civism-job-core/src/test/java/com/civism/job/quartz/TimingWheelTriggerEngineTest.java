@@ -0,0 +1,163 @@
+package com.civism.job.quartz;
+
+import com.civism.job.route.CivismJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.JobKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author star
+ * @date 2026/10/21 下午4:20
+ * 时间轮在各层边界上的触发tick，每格1秒，不启动时间轮线程，由测试逐格推进
+ * <p>
+ * 第0层512格，第1层每格512，第2层每格32768，第3层每格2097152
+ */
+public class TimingWheelTriggerEngineTest {
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final Set<JobKey> firedKeys = ConcurrentHashMap.newKeySet();
+
+    private TimingWheelTriggerEngine engine;
+
+    private long startMillis;
+
+    private CivismJob civismJob;
+
+    @Before
+    public void setUp() {
+        engine = new TimingWheelTriggerEngine(TICK_MILLIS, 1, new TimingWheelTriggerEngine.Firer() {
+            @Override
+            public void fire(JobKey jobKey, CivismJob civismJob) {
+                firedKeys.add(jobKey);
+            }
+        });
+        //对齐到整秒，第n格正好是 startMillis + n秒
+        startMillis = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        engine.init(startMillis);
+        civismJob = new CivismJob();
+        civismJob.setBeanName("wheelTest");
+        civismJob.setMethod("run");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        engine.shutdown();
+    }
+
+    @Test
+    public void 第0层的任务在到期的那一格触发() throws Exception {
+        assertEquals(Arrays.asList(1L, 100L, 511L), fireTicks(1, 100, 511));
+    }
+
+    @Test
+    public void 第1层降下来的任务在到期的那一格触发() throws Exception {
+        assertEquals(Arrays.asList(512L, 513L, 1000L, 1024L, 32767L), fireTicks(512, 513, 1000, 1024, 32767));
+    }
+
+    @Test
+    public void 第2层降下来的任务在到期的那一格触发() throws Exception {
+        assertEquals(Arrays.asList(32768L, 32769L, 33280L, 40000L), fireTicks(32768, 32769, 33280, 40000));
+    }
+
+    @Test
+    public void 第3层降下来的任务在到期的那一格触发() throws Exception {
+        assertEquals(Arrays.asList(2097152L, 2097153L, 2097664L, 2129920L), fireTicks(2097152, 2097153, 2097664, 2129920));
+    }
+
+    @Test
+    public void 时间轮转过一段后新增的任务按剩余时间放置() throws Exception {
+        runTo(300);
+        List<Long> expected = Arrays.asList(300L + 212, 300L + 512, 300L + 32768);
+        for (long tick : expected) {
+            engine.schedule(JobKey.jobKey("job" + tick, "wheel"), cron(tick), civismJob, false);
+        }
+        assertEquals(expected, runTo(40000));
+    }
+
+    @Test
+    public void 删除的任务不触发() throws Exception {
+        JobKey jobKey = JobKey.jobKey("removed", "wheel");
+        engine.schedule(jobKey, cron(600), civismJob, false);
+        runTo(10);
+        engine.unschedule(jobKey);
+        assertTrue(runTo(1200).isEmpty());
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    public void 重新调度后只按新的时间触发() throws Exception {
+        JobKey jobKey = JobKey.jobKey("rescheduled", "wheel");
+        engine.schedule(jobKey, cron(600), civismJob, false);
+        runTo(10);
+        engine.schedule(jobKey, cron(40000), civismJob, false);
+        assertEquals(Arrays.asList(40000L), runTo(41000));
+    }
+
+    @Test
+    public void 暂停的任务不触发() throws Exception {
+        JobKey jobKey = JobKey.jobKey("paused", "wheel");
+        engine.schedule(jobKey, cron(600), civismJob, false);
+        engine.schedule(jobKey, cron(600), civismJob, true);
+        assertTrue(runTo(1200).isEmpty());
+    }
+
+    /**
+     * 每个tick一个只触发一次的任务，推进到最后一个之后返回实际触发的tick
+     */
+    private List<Long> fireTicks(long... ticks) throws Exception {
+        long last = 0;
+        for (long tick : ticks) {
+            engine.schedule(JobKey.jobKey("job" + tick, "wheel"), cron(tick), civismJob, false);
+            last = Math.max(last, tick);
+        }
+        List<Long> fired = runTo(last + 1);
+        awaitFirer(ticks.length);
+        return fired;
+    }
+
+    /**
+     * 推进到指定tick，返回这期间每次触发时的tick
+     */
+    private List<Long> runTo(long target) {
+        List<Long> fired = new ArrayList<>();
+        long count = engine.getFired();
+        while (engine.getTick() < target) {
+            engine.step();
+            for (long now = engine.getFired(); count < now; count++) {
+                fired.add(engine.getTick());
+            }
+        }
+        return fired;
+    }
+
+    private void awaitFirer(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (firedKeys.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, firedKeys.size());
+    }
+
+    /**
+     * 只在第tick格触发一次的cron
+     */
+    private String cron(long tick) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(startMillis + tick * TICK_MILLIS);
+        return String.format("%d %d %d %d %d ? %d", calendar.get(Calendar.SECOND), calendar.get(Calendar.MINUTE),
+                calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.DAY_OF_MONTH), calendar.get(Calendar.MONTH) + 1,
+                calendar.get(Calendar.YEAR));
+    }
+}
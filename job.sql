@@ -179,5 +179,6 @@ CREATE TABLE `tb_job_record` (
   `result` varchar(200) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   `gmt_create` datetime NOT NULL,
   `gmt_modified` datetime NOT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `idx_request_id` (`request_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=414 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
\ No newline at end of file